@@ -25,6 +25,9 @@ import java.util.function.Supplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import gazcreations.borkler.api.SteamCapabilities;
+import gazcreations.borkler.command.BorklerCommand;
+import gazcreations.borkler.compat.MekanismCompat;
 import gazcreations.borkler.network.BorklerPacketHandler;
 import gazcreations.borkler.proxy.ClientProxy;
 import gazcreations.borkler.recipes.BorklerFuelSerializer;
@@ -38,6 +41,7 @@ import net.minecraft.tileentity.TileEntityType;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.RegisterCommandsEvent;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -117,6 +121,8 @@ public class Borkler {
 		steamTypes.add(() -> Index.Fluids.STEAM);
 		steamTypes.add(() -> Index.Fluids.STEAMSOURCE);
 		FluidTags.createOptional(steam, steamTypes);
+		SteamCapabilities.register();
+		MekanismCompat.init();
 	}
 
 	void enqueueIMC(final InterModEnqueueEvent event) {
@@ -140,6 +146,11 @@ public class Borkler {
 		LOGGER.info("Fire up those turbines! This server is Borkler-powered.");
 	}
 
+	@SubscribeEvent
+	public void onRegisterCommands(RegisterCommandsEvent event) {
+		BorklerCommand.register(event.getDispatcher());
+	}
+
 	/**
 	 * Fire up those registries!
 	 * <p>
@@ -75,6 +75,56 @@ public class BorklerConfig {
 	 */
 	public final ForgeConfigSpec.DoubleValue NERFACTOR;
 
+	/**
+	 * How often, in ticks, a dormant boiler with fluid connections wakes up to
+	 * check whether its neighbors have water for it or room for its steam.
+	 */
+	public final ForgeConfigSpec.IntValue DORMANT_RECHECK;
+
+	/**
+	 * How often, in ticks, a boiler does its thing. Every time it does, it catches
+	 * up on all the ticks it skipped, so a boiler makes just as much steam out of
+	 * just as much water either way; it just does it in bigger, less frequent
+	 * steps.
+	 */
+	public final ForgeConfigSpec.IntValue TICK_INTERVAL;
+
+	/**
+	 * Boilers within this many blocks of a player update every
+	 * {@link BorklerConfig#TICK_INTERVAL} ticks. Boilers further away than that
+	 * update every {@link BorklerConfig#LOD_FAR_INTERVAL} ticks.
+	 */
+	public final ForgeConfigSpec.IntValue LOD_NEAR_DISTANCE;
+
+	/**
+	 * How often, in ticks, a boiler that's far away from every player updates.
+	 */
+	public final ForgeConfigSpec.IntValue LOD_FAR_INTERVAL;
+
+	/**
+	 * How much time, in microseconds, all the boilers in a world may spend per
+	 * tick looking for neighbors, trading fluids with them and syncing with
+	 * clients. Whatever doesn't fit is left for the next tick. 0 means no limit.
+	 */
+	public final ForgeConfigSpec.IntValue TICK_BUDGET;
+
+	/**
+	 * How many boilers a world needs to have before their boiling is spread over
+	 * multiple threads. 0 means never.
+	 */
+	public final ForgeConfigSpec.IntValue PARALLEL_THRESHOLD;
+
+	/**
+	 * How many solid fuel items a hungry boiler can keep in reserve, on top of
+	 * its fuel slot.
+	 */
+	public final ForgeConfigSpec.IntValue FUEL_BUFFER;
+
+	/**
+	 * The fewest ticks between two updates a boiler sends to clients.
+	 */
+	public final ForgeConfigSpec.IntValue SYNC_INTERVAL;
+
 	protected BorklerConfig(ForgeConfigSpec.Builder builder) {
 		HUNGRY = builder.comment(
 				"If true, the boiler will automatically attempt to pull burnable items from connected containers.")
@@ -89,5 +139,26 @@ public class BorklerConfig {
 		NERFACTOR = builder.comment("A multiplier (<=1) for how much time solid fuel will burn for in a boiler. "
 				+ "Added after I realized using the same burn time as for the furnace creates"
 				+ " a very overpowered, fuel-conserving boiler.").defineInRange("nerfactor", 0.6, 0.001, 1.0);
+		DORMANT_RECHECK = builder.comment("How often, in ticks, an idle boiler wakes up to check whether its neighbors "
+				+ "have water for it or room for its steam.").defineInRange("dormant_recheck", 20, 1, 1200);
+		TICK_INTERVAL = builder.comment("How often, in ticks, a boiler updates. Higher values are easier on the server; "
+				+ "boilers catch up on skipped ticks, so they'll produce the same amount of steam in the long run.")
+				.defineInRange("tick_interval", 1, 1, 20);
+		LOD_NEAR_DISTANCE = builder.comment("Boilers within this many blocks of a player update every tick_interval ticks. "
+				+ "Boilers further away update every lod_far_interval ticks.")
+				.defineInRange("lod_near_distance", 64, 0, 4096);
+		LOD_FAR_INTERVAL = builder.comment("How often, in ticks, a boiler that's far away from every player updates. "
+				+ "Boilers in chunks that aren't ticking at all only catch up once they are.")
+				.defineInRange("lod_far_interval", 10, 1, 200);
+		TICK_BUDGET = builder.comment("How much time, in microseconds, the boilers in a world may spend per tick on "
+				+ "neighbor scans, fluid transfers and client syncs. Leftover work carries over to the next tick. "
+				+ "0 means no limit.").defineInRange("tick_budget", 2000, 0, 50000);
+		PARALLEL_THRESHOLD = builder.comment("How many boilers a world needs to have before their boiling is spread "
+				+ "over multiple threads. 0 means never.").defineInRange("parallel_threshold", 1024, 0, 1000000);
+		FUEL_BUFFER = builder.comment("How many solid fuel items a hungry boiler can keep in reserve, on top of its "
+				+ "fuel slot. Hungry boilers only restock once they're down to half of that, a few stacks at a time.")
+				.defineInRange("fuel_buffer", 256, 0, 4096);
+		SYNC_INTERVAL = builder.comment("How often, in ticks, a boiler may send its changes to clients, at most. "
+				+ "Changes made in between are sent together.").defineInRange("sync_interval", 2, 1, 200);
 	}
 }
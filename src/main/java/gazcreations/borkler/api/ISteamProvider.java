@@ -0,0 +1,43 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.api;
+
+/**
+ * Something that hands out steam on request. Boilers expose this through
+ * {@link SteamCapabilities#STEAM_PROVIDER}, on the faces steam may be pulled
+ * out of.
+ * <p>
+ * Same deal as {@link ISteamReceiver}, the other way around: ask for an
+ * amount, get however much of it there was.
+ * </p>
+ * 
+ * @author gazotti
+ *
+ */
+@FunctionalInterface
+public interface ISteamProvider {
+
+	/**
+	 * Takes steam out.
+	 * 
+	 * @param maxAmount the most steam wanted, in mB.
+	 * @return how much steam was actually taken, between 0 and maxAmount.
+	 */
+	int extractSteam(int maxAmount);
+}
@@ -0,0 +1,43 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.api;
+
+/**
+ * Something that takes steam from a boiler, like a turbine.
+ * <p>
+ * Expose this through {@link SteamCapabilities#STEAM_RECEIVER} and boilers
+ * next to you will push their steam through it instead of your
+ * IFluidHandler: a plain amount, in mB, no FluidStacks, no simulating first,
+ * no checking what fluid it is. It's always steam.
+ * </p>
+ * 
+ * @author gazotti
+ *
+ */
+@FunctionalInterface
+public interface ISteamReceiver {
+
+	/**
+	 * Takes up to a given amount of steam.
+	 * 
+	 * @param amount how much steam is on offer, in mB. Always positive.
+	 * @return how much of it was actually taken, between 0 and amount.
+	 */
+	int receiveSteam(int amount);
+}
@@ -0,0 +1,67 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.api;
+
+import net.minecraft.nbt.INBT;
+import net.minecraft.util.Direction;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+
+/**
+ * Borkler's steam capabilities. Both are registered by Borkler during common
+ * setup; until then, and if Borkler isn't around at all, these fields are
+ * null.
+ * 
+ * @author gazotti
+ *
+ */
+public final class SteamCapabilities {
+
+	@CapabilityInject(ISteamReceiver.class)
+	public static Capability<ISteamReceiver> STEAM_RECEIVER = null;
+
+	@CapabilityInject(ISteamProvider.class)
+	public static Capability<ISteamProvider> STEAM_PROVIDER = null;
+
+	private SteamCapabilities() {
+	}
+
+	/**
+	 * Registers both capabilities with Forge. Called by Borkler, not by you.
+	 */
+	public static void register() {
+		CapabilityManager.INSTANCE.register(ISteamReceiver.class, new NoStorage<>(), () -> amount -> 0);
+		CapabilityManager.INSTANCE.register(ISteamProvider.class, new NoStorage<>(), () -> maxAmount -> 0);
+	}
+
+	/**
+	 * Whoever implements these keeps their own steam, and saves it their own way.
+	 */
+	private static final class NoStorage<T> implements Capability.IStorage<T> {
+		@Override
+		public INBT writeNBT(Capability<T> capability, T instance, Direction side) {
+			return null;
+		}
+
+		@Override
+		public void readNBT(Capability<T> capability, T instance, Direction side, INBT nbt) {
+		}
+	}
+}
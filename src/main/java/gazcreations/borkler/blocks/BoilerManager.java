@@ -0,0 +1,779 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package gazcreations.borkler.blocks;
+
+import static gazcreations.borkler.blocks.BoilerTanks.AWAKE;
+import static gazcreations.borkler.blocks.BoilerTanks.CONSUME_SOLID;
+import static gazcreations.borkler.blocks.BoilerTanks.DEAD;
+import static gazcreations.borkler.blocks.BoilerTanks.EXCHANGED;
+import static gazcreations.borkler.blocks.BoilerTanks.FAR;
+import static gazcreations.borkler.blocks.BoilerTanks.LAZY;
+import static gazcreations.borkler.blocks.BoilerTanks.NEAR;
+import static gazcreations.borkler.blocks.BoilerTanks.OWED;
+import static gazcreations.borkler.blocks.BoilerTanks.PROGRESS;
+import static gazcreations.borkler.blocks.BoilerTanks.RESCAN;
+import static gazcreations.borkler.blocks.BoilerTanks.SCHEDULED;
+import static gazcreations.borkler.blocks.BoilerTanks.STEAM_CAPACITY;
+import static gazcreations.borkler.blocks.BoilerTanks.SYNC;
+import static gazcreations.borkler.blocks.BoilerTanks.TICKING;
+import static gazcreations.borkler.blocks.BoilerTanks.WANT_ACTIVE;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+import gazcreations.borkler.BorklerConfig;
+import gazcreations.borkler.network.BorklerChunkUpdate;
+import gazcreations.borkler.network.BorklerPacketHandler;
+import gazcreations.borkler.recipes.FuelIndex;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.AbstractChunkProvider;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * Owns and ticks every loaded boiler in a world.
+ * <p>
+ * The boilers' water, fuel, steam, burn time and flags live in the manager's
+ * {@link BoilerTanks}, one flat array per field, and a
+ * {@link BorklerTileEntity} is little more than a view over its slot in there.
+ * Every tick goes like this:
+ * <ol>
+ * <li>each awake boiler trades fluids with its neighbors (the part that needs
+ * the world and capabilities), within a time budget, along with any pending
+ * neighbor scans;</li>
+ * <li>one tight loop over the arrays does the boiling and the fuel ignition for
+ * every awake boiler at once. It doesn't touch the world, so with enough
+ * boilers around (see {@link BorklerConfig#PARALLEL_THRESHOLD}) it's split
+ * into batches and run on the common fork-join pool;</li>
+ * <li>each awake boiler commits the results back to the world: block state,
+ * fuel slot, dirtiness, and whether it should go to sleep;</li>
+ * <li>boilers that changed are synced with the clients, out of whatever's left
+ * of the time budget.</li>
+ * </ol>
+ * With a {@link BorklerConfig#TICK_INTERVAL} above 1, each boiler only gets
+ * its turn every so many ticks (which tick depends on its position, so that
+ * they don't all go at once), and catches up on the ticks it skipped. <br>
+ * The same goes for boilers far away from every player (see
+ * {@link BorklerConfig#LOD_NEAR_DISTANCE}), which only get their turn every
+ * {@link BorklerConfig#LOD_FAR_INTERVAL} ticks. Boilers in chunks that are
+ * loaded but not ticking don't get a turn at all until they are.
+ * </p>
+ * <p>
+ * A boiler that has nothing to do (no water, no fuel, a full steam tank and
+ * nowhere to put it) goes dormant, and is skipped until something wakes it up:
+ * a fill or insert through its capabilities, a new neighbor, a steam drain, or
+ * a player opening its GUI. A neighbor that's merely busy doesn't count. <br>
+ * Pipes and turbines don't tell us when they've got room (or water) again,
+ * though, so dormant boilers with fluid connections are also woken up once
+ * every {@link BorklerConfig#DORMANT_RECHECK} ticks, staggered by position.
+ * </p>
+ * <p>
+ * A boiler that's burning steadily, not trading fluids with anyone, with
+ * nobody to push steam to and nobody looking at its GUI is perfectly
+ * predictable: it'll keep turning the same amount of water into the
+ * same amount of steam until its burn time runs out, its water runs low or its
+ * steam tank fills up, whichever comes first. Such a boiler is taken out of
+ * the tick loop and put on a {@link TimingWheel} until then. Its tanks are
+ * brought up to date in one go when it wakes, or whenever somebody looks at
+ * them in the meantime; a fill or a drain just works out a new wakeup time.
+ * </p>
+ * Server side only. There is one manager per world, created on demand.
+ * 
+ * @author gazotti
+ *
+ */
+@Mod.EventBusSubscriber(modid = "borkler")
+public final class BoilerManager {
+
+	private static final Reference2ObjectOpenHashMap<IWorld, BoilerManager> MANAGERS = new Reference2ObjectOpenHashMap<>();
+
+	/**
+	 * Boilers that other threads have filled or drained since the last server
+	 * tick. See {@link TankCredits}.
+	 */
+	private static final ConcurrentLinkedQueue<BorklerTileEntity> OFF_THREAD = new ConcurrentLinkedQueue<>();
+
+	private final World world;
+
+	/**
+	 * Every boiler loaded in this world, awake or not.
+	 */
+	final BoilerTanks tanks = new BoilerTanks(64);
+
+	/**
+	 * How often, in ticks, boilers are sorted by their distance from players.
+	 */
+	private static final int LOD_REFRESH = 20;
+
+	/**
+	 * When scheduled boilers are due to wake up.
+	 */
+	private final TimingWheel<BorklerTileEntity> wheel = new TimingWheel<>(this::dueTime);
+
+	/**
+	 * What the wheel hands due boilers to. Kept around so that a tick doesn't
+	 * create a new one every time.
+	 */
+	private final Consumer<BorklerTileEntity> waker = this::wakeDue;
+
+	/**
+	 * When dormant boilers are due to check on their neighbors. See
+	 * {@link BoilerManager#recheck(BorklerTileEntity)}.
+	 */
+	private final TimingWheel<BorklerTileEntity> dormant = new TimingWheel<>(this::recheckTime);
+
+	private final Consumer<BorklerTileEntity> rechecker = this::recheck;
+
+	/**
+	 * True while the tick loop is running. Slots can't be moved around then.
+	 */
+	private boolean ticking;
+
+	/**
+	 * True if some slots have been released and should be reclaimed.
+	 */
+	private boolean needsCompaction;
+
+	/**
+	 * Where the next tick's round of neighbor work starts. See
+	 * {@link BoilerManager#exchange(int, long, long)}.
+	 */
+	private int cursor;
+
+	/**
+	 * How many nanoseconds of {@link BorklerConfig#TICK_BUDGET} this tick has
+	 * left. Spent by {@link BoilerManager#exchange(int, long, long)}, then by
+	 * {@link BoilerManager#flushSync(long)}.
+	 */
+	private long budgetLeft;
+
+	/**
+	 * Boilers with sides that couldn't be looked at because their chunk wasn't
+	 * loaded. See {@link BoilerManager#onChunkLoad(ChunkEvent.Load)}.
+	 */
+	private final ReferenceOpenHashSet<BorklerTileEntity> waitingForChunks = new ReferenceOpenHashSet<>();
+
+	/**
+	 * Boilers with changes clients haven't seen yet, each listed once (that's
+	 * what {@link BoilerTanks#SYNC} is for), oldest first. Sent at the end of
+	 * every tick, as far as the time budget goes. See
+	 * {@link BoilerManager#flushSync(long)}.
+	 */
+	private final ObjectArrayList<BorklerTileEntity> dirty = new ObjectArrayList<>();
+
+	/**
+	 * When the boilers' levels of detail are due to be worked out again.
+	 */
+	private long lodRefreshAt;
+
+	private BoilerManager(World world) {
+		this.world = world;
+	}
+
+	/**
+	 * @return the manager for a given (server) world. One is created if needed.
+	 */
+	public static BoilerManager get(World world) {
+		BoilerManager manager = MANAGERS.get(world);
+		if (manager == null) {
+			manager = new BoilerManager(world);
+			MANAGERS.put(world, manager);
+		}
+		return manager;
+	}
+
+	/**
+	 * Like {@link BoilerManager#get(World)}, but won't create a new manager. Use
+	 * this when tearing things down, so that a world that's being unloaded
+	 * doesn't get a fresh manager.
+	 */
+	public static BoilerManager getIfPresent(World world) {
+		return MANAGERS.get(world);
+	}
+
+	/**
+	 * Starts managing a boiler, moving its contents into this manager's arrays.
+	 * New boilers start out awake. <br>
+	 * A boiler that's been loaded back in from disk remembers when it was last up
+	 * to date, and will fast-forward through the time it spent unloaded on its
+	 * first turn. See {@link BoilerManager#boil(int, long)}.
+	 */
+	public void add(BorklerTileEntity boiler) {
+		if (boiler.tanks == tanks)
+			return;
+		int slot = tanks.allocate(boiler);
+		boiler.tanks.copy(boiler.slot, tanks, slot);
+		boiler.tanks = tanks;
+		boiler.slot = slot;
+		long now = world.getGameTime();
+		if (tanks.since[slot] <= 0 || tanks.since[slot] >= now)
+			tanks.since[slot] = now - 1; // a brand new boiler, or one from the future
+		tanks.stagger[slot] = boiler.getPos().hashCode();
+		tanks.flags[slot] |= AWAKE;
+		if ((tanks.flags[slot] & SYNC) != 0)
+			dirty.add(boiler); // changed while it wasn't managed
+	}
+
+	/**
+	 * Lists a boiler for the next client update, unless it's already listed or
+	 * isn't managed here.
+	 */
+	void markForSync(BorklerTileEntity boiler) {
+		if (boiler.tanks != tanks || (tanks.flags[boiler.slot] & SYNC) != 0)
+			return;
+		tanks.flags[boiler.slot] |= SYNC;
+		dirty.add(boiler);
+	}
+
+	/**
+	 * Stops managing a boiler, e.g. because it's been removed or its chunk has
+	 * been unloaded. Its contents are handed back to it.
+	 */
+	public void remove(BorklerTileEntity boiler) {
+		if (boiler.tanks != tanks)
+			return;
+		settle(boiler.slot, world.getGameTime());
+		BoilerTanks own = new BoilerTanks(1);
+		int slot = own.allocate(boiler);
+		tanks.copy(boiler.slot, own, slot);
+		if ((tanks.flags[boiler.slot] & (AWAKE | SCHEDULED)) == 0)
+			own.since[slot] = world.getGameTime(); // it had nothing to do, so it's as up to date as it gets
+		tanks.release(boiler.slot);
+		waitingForChunks.remove(boiler);
+		boiler.tanks = own;
+		boiler.slot = slot;
+		needsCompaction = true;
+		if (!ticking)
+			compact();
+	}
+
+	/**
+	 * Puts a boiler back into the tick loop. Cheap to call on a boiler that's
+	 * already awake.
+	 */
+	public void wake(BorklerTileEntity boiler) {
+		if (boiler.tanks != tanks)
+			return;
+		int i = boiler.slot;
+		if ((tanks.flags[i] & AWAKE) != 0)
+			return;
+		if ((tanks.flags[i] & SCHEDULED) != 0)
+			settle(i, world.getGameTime());
+		else
+			tanks.since[i] = world.getGameTime() - 1; // the time spent dormant doesn't count
+		tanks.flags[i] = (tanks.flags[i] & ~SCHEDULED) | AWAKE;
+	}
+
+	/**
+	 * Wakes up a boiler that the wheel says is due. Whoever it has around gets
+	 * asked for steam again right away.
+	 */
+	private void wakeDue(BorklerTileEntity boiler) {
+		boiler.forgetFullConsumers();
+		wake(boiler);
+	}
+
+	/**
+	 * To be called after a scheduled boiler's tanks have been changed from the
+	 * outside (say, a pipe took some steam): works out when it's due to wake up
+	 * now. Boilers that aren't scheduled are simply woken up.
+	 */
+	public void reschedule(BorklerTileEntity boiler) {
+		if (boiler.tanks != tanks)
+			return;
+		int i = boiler.slot;
+		if ((tanks.flags[i] & SCHEDULED) == 0 || !schedule(i, world.getGameTime(), tanks.waterPerTick[i],
+				tanks.steamPerTick[i]))
+			wake(boiler);
+	}
+
+	/**
+	 * Brings a scheduled boiler's tanks up to date. Call this before looking at
+	 * them.
+	 */
+	public void settle(BorklerTileEntity boiler) {
+		if (boiler.tanks == tanks)
+			settle(boiler.slot, world.getGameTime());
+	}
+
+	/**
+	 * Takes a boiler out of the tick loop until it is woken up again, or until
+	 * its next recheck.
+	 */
+	public void sleep(BorklerTileEntity boiler) {
+		if (boiler.tanks != tanks)
+			return;
+		int i = boiler.slot;
+		boolean wasDormant = (tanks.flags[i] & (AWAKE | SCHEDULED)) == 0;
+		tanks.flags[i] &= ~(AWAKE | SCHEDULED);
+		if (!wasDormant)
+			fileForRecheck(i, world.getGameTime());
+	}
+
+	/**
+	 * @return whether the boiler is managed here, and awake.
+	 */
+	public boolean isAwake(BorklerTileEntity boiler) {
+		return boiler.tanks == tanks && (tanks.flags[boiler.slot] & AWAKE) != 0;
+	}
+
+	/**
+	 * @return how many boilers are loaded in this world.
+	 */
+	public int getLoadedCount() {
+		int count = 0;
+		for (int i = 0; i < tanks.size; i++)
+			if ((tanks.flags[i] & DEAD) == 0)
+				count++;
+		return count;
+	}
+
+	/**
+	 * @return how many boilers in this world are awake.
+	 */
+	public int getAwakeCount() {
+		int count = 0;
+		for (int i = 0; i < tanks.size; i++)
+			if ((tanks.flags[i] & AWAKE) != 0)
+				count++;
+		return count;
+	}
+
+	/**
+	 * @return how many boilers in this world are sleeping on the timing wheel.
+	 */
+	public int getScheduledCount() {
+		int count = 0;
+		for (int i = 0; i < tanks.size; i++)
+			if ((tanks.flags[i] & SCHEDULED) != 0)
+				count++;
+		return count;
+	}
+
+	/**
+	 * @return how many boilers in this world are near a player, far from every
+	 *         player, and in chunks that aren't ticking, in this order.
+	 */
+	public int[] getLodCounts() {
+		int[] counts = new int[3];
+		for (int i = 0; i < tanks.size; i++)
+			if ((tanks.flags[i] & DEAD) == 0)
+				counts[tanks.lod[i]]++;
+		return counts;
+	}
+
+	/**
+	 * Works out every boiler's level of detail. See {@link BoilerTanks#NEAR}.
+	 */
+	private void refreshLod(long now) {
+		lodRefreshAt = now + LOD_REFRESH;
+		final double near = BorklerConfig.CONFIG.LOD_NEAR_DISTANCE.get();
+		final double nearSq = near * near;
+		final List<? extends PlayerEntity> players = world.getPlayers();
+		final AbstractChunkProvider chunks = world.getChunkProvider();
+		for (int i = 0; i < tanks.size; i++) {
+			BorklerTileEntity boiler = tanks.owners[i];
+			if (boiler == null)
+				continue;
+			BlockPos pos = boiler.getPos();
+			byte lod = FAR;
+			if (!chunks.canTick(pos)) {
+				lod = LAZY;
+			} else {
+				for (int p = 0; p < players.size(); p++) {
+					if (players.get(p).getDistanceSq(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5) <= nearSq) {
+						lod = NEAR;
+						break;
+					}
+				}
+			}
+			tanks.lod[i] = lod;
+		}
+	}
+
+	/**
+	 * Takes a boiler that's just been ticked out of the tick loop, if nothing's
+	 * going to happen to it for a while. See {@link BoilerManager}.
+	 * 
+	 * @return true if the boiler has been scheduled.
+	 */
+	private boolean schedule(int i, long now, int waterPerTick, double steamPerTick) {
+		if (waterPerTick <= 0)
+			return false;
+		settle(i, now);
+		if (tanks.steam[i] >= STEAM_CAPACITY)
+			return false;
+		long ticks = Math.min(tanks.burnTime[i], tanks.water[i] / waterPerTick);
+		ticks = Math.min(ticks, tanks.ticksToFill(i, steamPerTick));
+		if (ticks < 2)
+			return false; // not worth it
+		tanks.since[i] = now;
+		tanks.wakeAt[i] = now + ticks;
+		tanks.waterPerTick[i] = waterPerTick;
+		tanks.steamPerTick[i] = steamPerTick;
+		tanks.flags[i] = (tanks.flags[i] & ~AWAKE) | SCHEDULED;
+		wheel.schedule(tanks.owners[i], now + ticks);
+		return true;
+	}
+
+	/**
+	 * Applies every tick a scheduled boiler has slept through, up to now, to its
+	 * tanks. Nothing can have happened in between but plain boiling, so that's
+	 * just a few multiplications.
+	 */
+	private void settle(int i, long now) {
+		if ((tanks.flags[i] & SCHEDULED) == 0)
+			return;
+		int ticks = (int) (Math.min(now, tanks.wakeAt[i]) - tanks.since[i]);
+		if (ticks <= 0)
+			return;
+		tanks.water[i] -= ticks * tanks.waterPerTick[i];
+		double made = tanks.steamRemainder[i] + ticks * tanks.steamPerTick[i];
+		int whole = (int) made;
+		tanks.steam[i] = Math.min(STEAM_CAPACITY, tanks.steam[i] + whole);
+		tanks.steamRemainder[i] = made - whole;
+		tanks.burnTime[i] -= ticks;
+		tanks.since[i] += ticks;
+	}
+
+	/**
+	 * @return when a boiler on the wheel is due, or -1 if it no longer is.
+	 */
+	private long dueTime(BorklerTileEntity boiler) {
+		if (boiler.tanks != tanks || (tanks.flags[boiler.slot] & SCHEDULED) == 0)
+			return -1;
+		return tanks.wakeAt[boiler.slot];
+	}
+
+	private void compact() {
+		tanks.compact();
+		needsCompaction = false;
+	}
+
+	private void tick() {
+		ticking = true;
+		try {
+			final long now = world.getGameTime();
+			final long nearInterval = BorklerConfig.CONFIG.TICK_INTERVAL.get();
+			final long farInterval = Math.max(nearInterval, BorklerConfig.CONFIG.LOD_FAR_INTERVAL.get());
+			final long budget = BorklerConfig.CONFIG.TICK_BUDGET.get() * 1000L;
+			budgetLeft = budget > 0 ? budget : Long.MAX_VALUE;
+			if (now >= lodRefreshAt)
+				refreshLod(now);
+			dormant.advance(now, rechecker);
+			// boilers added during this tick will have to wait for the next one
+			final int n = tanks.size;
+			tanks.takeTurns(n, now, nearInterval, farInterval);
+			exchange(n, now, farInterval);
+			boil(n, now);
+			commit(n, now);
+			// boilers that have reached their next event go back to the tick loop
+			wheel.advance(now, waker);
+			flushSync(now);
+		} finally {
+			ticking = false;
+		}
+		if (needsCompaction)
+			compact();
+	}
+
+	/**
+	 * Phase 1: everything that has to talk to the neighbors. Boilers look for new
+	 * neighbors if they've been asked to, pull water and fuel, and push steam.
+	 * <br>
+	 * A boiler that's behind by more than a turn's worth of ticks (it's just been
+	 * loaded back in) doesn't trade fluids this time around: it has to boil its
+	 * way through the time it spent unloaded with what it had back then, not with
+	 * what its neighbors have now. <br>
+	 * All of this has to fit in {@link BorklerConfig#TICK_BUDGET}. Boilers go in
+	 * turns, starting where the last tick left off; once time's up, the rest of
+	 * them keep their work for the next tick, so nobody starves.
+	 */
+	private void exchange(int n, long now, long interval) {
+		final long start = System.nanoTime();
+		final int first = cursor < n ? cursor : 0;
+		boolean outOfTime = false;
+		for (int k = 0; k < n; k++) {
+			int i = first + k < n ? first + k : first + k - n;
+			int f = tanks.flags[i];
+			if ((f & (TICKING | OWED | RESCAN)) == 0)
+				continue;
+			if (outOfTime) {
+				// next time, buddy. Don't go to sleep in the meantime.
+				if ((f & TICKING) != 0)
+					tanks.flags[i] = f | OWED | PROGRESS | EXCHANGED;
+				continue;
+			}
+			BorklerTileEntity boiler = tanks.owners[i];
+			if (boiler == null || boiler.isRemoved()) {
+				tanks.flags[i] = f & ~(TICKING | OWED | RESCAN);
+				continue;
+			}
+			if ((f & RESCAN) != 0) {
+				tanks.flags[i] &= ~RESCAN;
+				if (boiler.rescanPendingSides())
+					waitingForChunks.add(boiler);
+				if ((tanks.flags[i] & SCHEDULED) != 0 && boiler.hasSteamConsumers())
+					wake(boiler); // somebody new wants steam every tick
+			}
+			if ((f & (TICKING | OWED)) != 0) {
+				tanks.flags[i] &= ~OWED;
+				if (now - tanks.since[i] <= interval && boiler.exchange())
+					tanks.flags[i] |= PROGRESS | EXCHANGED;
+				else if ((f & TICKING) != 0)
+					tanks.flags[i] &= ~(PROGRESS | EXCHANGED);
+			}
+			if (System.nanoTime() - start > budgetLeft) {
+				outOfTime = true;
+				cursor = i + 1;
+			}
+		}
+		budgetLeft -= System.nanoTime() - start;
+	}
+
+	/**
+	 * Sends every boiler that's changed since its last client update to the
+	 * clients, once, unless it's had one less than
+	 * {@link BorklerConfig#SYNC_INTERVAL} ticks ago. Those stay listed for later.
+	 * <br>
+	 * Each boiler's {@link BorklerChunkUpdate} only goes to the players that have
+	 * its GUI open, encoded once for all of them. A player only ever has one
+	 * boiler open, so nobody hears about the boilers next to it, and the packets
+	 * sent scale with the boilers being looked at, not with the boilers there
+	 * are. <br>
+	 * This comes out of what's left of {@link BorklerConfig#TICK_BUDGET}. At least
+	 * one boiler goes out every tick; once time's up, the rest stay listed, in
+	 * order, and go first on the next tick.
+	 */
+	private void flushSync(long now) {
+		if (dirty.isEmpty())
+			return;
+		final long start = System.nanoTime();
+		final int interval = BorklerConfig.CONFIG.SYNC_INTERVAL.get();
+		int kept = 0;
+		int k = 0;
+		while (k < dirty.size()) {
+			BorklerTileEntity boiler = dirty.get(k++);
+			if (boiler.isRemoved() || boiler.tanks != tanks)
+				continue; // gone. If it comes back, add() lists it again
+			if (now - boiler.lastClientUpdate < interval) {
+				dirty.set(kept++, boiler); // too soon
+				continue;
+			}
+			tanks.flags[boiler.slot] &= ~SYNC;
+			boiler.lastClientUpdate = now;
+			BlockPos pos = boiler.getPos();
+			BorklerChunkUpdate update = new BorklerChunkUpdate(pos.getX() >> 4, pos.getZ() >> 4);
+			boiler.collectUpdate(update);
+			if (!update.isEmpty())
+				BorklerPacketHandler.sendToPlayers(update.getRecipients(), update);
+			if (System.nanoTime() - start > budgetLeft)
+				break; // next time, buddy
+		}
+		while (k < dirty.size())
+			dirty.set(kept++, dirty.get(k++));
+		dirty.size(kept);
+	}
+
+	/**
+	 * Phase 2: the boiling itself, straight off the arrays. <br>
+	 * The boiler will refuse to operate if it has no water, or if its steam tank is
+	 * full. Otherwise, it boils while it has burn time left, and lights up some
+	 * more fuel (solid first, then liquid) when it runs out. <br>
+	 * Each boiler catches up on every tick since it was last brought up to date,
+	 * which is just the one unless {@link BorklerConfig#TICK_INTERVAL} says
+	 * otherwise. Runs of plain boiling are done in one step; fuel ignitions and
+	 * the last few drops of water take a tick each, same as they would if the
+	 * boiler were ticked every time.
+	 */
+	private void boil(int n, long now) {
+		final int waterUse = BorklerConfig.CONFIG.WATER_USE.get();
+		final double conversionRate = BorklerConfig.CONFIG.CONVERSION_RATE.get();
+		final int threshold = BorklerConfig.CONFIG.PARALLEL_THRESHOLD.get();
+		if (threshold <= 0 || n < threshold) {
+			tanks.boil(0, n, now, waterUse, conversionRate);
+			return;
+		}
+		// make sure nobody has to rebuild the fuel index from a worker thread
+		FuelIndex.getVersion();
+		ForkJoinPool.commonPool().invoke(new BoilTask(0, n, now, waterUse, conversionRate));
+	}
+
+	/**
+	 * Splits the boil phase into batches for the fork-join pool.
+	 */
+	private final class BoilTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * How many boilers are boiled by a single task, at most.
+		 */
+		private static final int BATCH = 256;
+
+		private final int from;
+		private final int to;
+		private final long now;
+		private final int waterUse;
+		private final double conversionRate;
+
+		BoilTask(int from, int to, long now, int waterUse, double conversionRate) {
+			this.from = from;
+			this.to = to;
+			this.now = now;
+			this.waterUse = waterUse;
+			this.conversionRate = conversionRate;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= BATCH) {
+				tanks.boil(from, to, now, waterUse, conversionRate);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new BoilTask(from, middle, now, waterUse, conversionRate),
+					new BoilTask(middle, to, now, waterUse, conversionRate));
+		}
+	}
+
+	/**
+	 * Phase 3: back to the world. Boilers that are burning along on their own
+	 * get scheduled. Those that have anyone to push steam to, or anyone looking
+	 * at their GUI, don't: both want to hear from them every tick.
+	 */
+	private void commit(int n, long now) {
+		final int waterUse = BorklerConfig.CONFIG.WATER_USE.get();
+		final double steamPerTick = waterUse * BorklerConfig.CONFIG.CONVERSION_RATE.get();
+		for (int i = 0; i < n; i++) {
+			int f = tanks.flags[i];
+			if ((f & TICKING) == 0)
+				continue;
+			BorklerTileEntity boiler = tanks.owners[i];
+			if (boiler == null)
+				continue;
+			boiler.commit((f & WANT_ACTIVE) != 0, (f & CONSUME_SOLID) != 0 ? tanks.solidUsed[i] : 0,
+					(f & PROGRESS) != 0);
+			if ((f & (WANT_ACTIVE | EXCHANGED)) == WANT_ACTIVE && boiler.tanks == tanks
+					&& (tanks.flags[i] & AWAKE) != 0 && !boiler.hasSteamConsumers() && !boiler.hasViewers())
+				schedule(i, now, waterUse, steamPerTick);
+		}
+	}
+
+	/**
+	 * Puts a dormant boiler on the recheck wheel, for the next tick that's its
+	 * turn. Turns come every {@link BorklerConfig#DORMANT_RECHECK} ticks,
+	 * staggered by position. A dormant boiler isn't scheduled, so its
+	 * {@link BoilerTanks#wakeAt} is free to hold this.
+	 */
+	private void fileForRecheck(int i, long now) {
+		long interval = BorklerConfig.CONFIG.DORMANT_RECHECK.get();
+		long at = now - Math.floorMod(now, interval) + Math.floorMod(tanks.stagger[i], interval);
+		if (at <= now)
+			at += interval;
+		tanks.wakeAt[i] = at;
+		dormant.schedule(tanks.owners[i], at);
+	}
+
+	/**
+	 * @return when a dormant boiler is due for a recheck, or -1 if it isn't
+	 *         dormant anymore.
+	 */
+	private long recheckTime(BorklerTileEntity boiler) {
+		if (boiler.tanks != tanks || (tanks.flags[boiler.slot] & (AWAKE | SCHEDULED)) != 0)
+			return -1;
+		return tanks.wakeAt[boiler.slot];
+	}
+
+	/**
+	 * A dormant boiler's turn to check on its neighbors: it's woken up if it has
+	 * any fluid connections or wants solid fuel, and filed for its next turn
+	 * otherwise. Only the boilers that are due get looked at.
+	 */
+	private void recheck(BorklerTileEntity boiler) {
+		if (boiler.hasFluidConnections() || boiler.isHungry())
+			wake(boiler);
+		else
+			fileForRecheck(boiler.slot, world.getGameTime());
+	}
+
+	/**
+	 * Lets the server thread know a boiler has been filled or drained by some
+	 * other thread. Safe to call from anywhere.
+	 */
+	static void queueOffThread(BorklerTileEntity boiler) {
+		OFF_THREAD.add(boiler);
+	}
+
+	/**
+	 * Catches up on what other threads did to boilers' tanks, before any world
+	 * ticks.
+	 */
+	@SubscribeEvent
+	public static void onServerTick(final TickEvent.ServerTickEvent event) {
+		if (event.phase != TickEvent.Phase.START)
+			return;
+		BorklerTileEntity boiler;
+		while ((boiler = OFF_THREAD.poll()) != null)
+			boiler.catchUpOffThread();
+	}
+
+	@SubscribeEvent
+	public static void onWorldTick(final TickEvent.WorldTickEvent event) {
+		if (event.phase != TickEvent.Phase.END || event.side != LogicalSide.SERVER)
+			return;
+		BoilerManager manager = MANAGERS.get(event.world);
+		if (manager != null)
+			manager.tick();
+	}
+
+	/**
+	 * Rescans the sides of boilers that were waiting on a chunk that's just been
+	 * loaded.
+	 */
+	@SubscribeEvent
+	public static void onChunkLoad(final ChunkEvent.Load event) {
+		if (event.getWorld() == null || event.getWorld().isRemote())
+			return;
+		BoilerManager manager = MANAGERS.get(event.getWorld());
+		if (manager == null || manager.waitingForChunks.isEmpty())
+			return;
+		ChunkPos chunk = event.getChunk().getPos();
+		manager.waitingForChunks.removeIf(boiler -> !boiler.onNeighborChunkLoaded(chunk.x, chunk.z));
+	}
+
+	@SubscribeEvent
+	public static void onWorldUnload(final WorldEvent.Unload event) {
+		MANAGERS.remove(event.getWorld());
+	}
+}
@@ -0,0 +1,404 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package gazcreations.borkler.blocks;
+
+import java.util.Arrays;
+
+import gazcreations.borkler.recipes.FuelIndex;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.fluid.Fluids;
+
+/**
+ * The contents of a bunch of boilers, laid out as one array per field rather
+ * than one object per boiler. Slot <i>i</i> of every array belongs to the same
+ * boiler, {@link BoilerTanks#owners}[i].
+ * <p>
+ * Each {@link BoilerManager} keeps every loaded boiler of its world in one of
+ * these, packed tightly, so that the boil loop can run through plain arrays. A
+ * boiler that isn't managed by anyone (client side, or not yet loaded) keeps
+ * its stuff in a little single-slot instance of its own.
+ * </p>
+ * Nobody outside of this package should need to touch this.
+ * 
+ * @author gazotti
+ *
+ */
+final class BoilerTanks {
+
+	static final int WATER_CAPACITY = 4000;
+	static final int FUEL_CAPACITY = 4000;
+	static final int STEAM_CAPACITY = 8000;
+
+	/**
+	 * The boiler is burning something. Mirrors the block state.
+	 */
+	static final int ACTIVE = 1;
+	/**
+	 * The boiler is not dormant, and will be ticked.
+	 */
+	static final int AWAKE = 2;
+	/**
+	 * The boiler is being ticked this time around. Set at the start of a tick.
+	 */
+	static final int TICKING = 4;
+	/**
+	 * Something happened to the boiler during this tick.
+	 */
+	static final int PROGRESS = 8;
+	/**
+	 * The boil step wants the boiler to be active by the end of this tick.
+	 */
+	static final int WANT_ACTIVE = 16;
+	/**
+	 * The boil step lit up items from the fuel slot, which have yet to be taken
+	 * out of the inventory. See {@link BoilerTanks#solidUsed}.
+	 */
+	static final int CONSUME_SOLID = 32;
+	/**
+	 * The slot no longer belongs to anyone, and will be reclaimed.
+	 */
+	static final int DEAD = 64;
+	/**
+	 * The boiler is asleep, but burning steadily: it's been put on the
+	 * {@link BoilerManager}'s timing wheel, and its tanks are only brought up to
+	 * date when it wakes up, or when somebody looks at them.
+	 */
+	static final int SCHEDULED = 128;
+	/**
+	 * The boiler traded fluids with its neighbors during this tick.
+	 */
+	static final int EXCHANGED = 256;
+	/**
+	 * The boiler should look for new neighbors. Kept until it's done, across
+	 * ticks if need be.
+	 */
+	static final int RESCAN = 512;
+	/**
+	 * The boiler has changed, and clients should hear about it.
+	 */
+	static final int SYNC = 1024;
+	/**
+	 * The boiler's turn came, but there was no time left to trade fluids with its
+	 * neighbors. It'll do so first thing on the next tick.
+	 */
+	static final int OWED = 2048;
+
+	/**
+	 * Level of detail: the boiler is near a player, and is updated every
+	 * {@link gazcreations.borkler.BorklerConfig#TICK_INTERVAL} ticks.
+	 */
+	static final byte NEAR = 0;
+	/**
+	 * Level of detail: the boiler is far from every player, and is updated every
+	 * {@link gazcreations.borkler.BorklerConfig#LOD_FAR_INTERVAL} ticks.
+	 */
+	static final byte FAR = 1;
+	/**
+	 * Level of detail: the boiler's chunk is loaded, but not ticking. The boiler
+	 * isn't updated at all, and catches up once it's promoted.
+	 */
+	static final byte LAZY = 2;
+
+	int size;
+	BorklerTileEntity[] owners;
+	int[] water;
+	int[] fuel;
+	Fluid[] fuelType;
+	int[] steam;
+	int[] burnTime;
+	/**
+	 * The (nerfed) burn time of whatever's in the boiler's fuel slot; 0 if
+	 * nothing burnable is there.
+	 */
+	int[] solidBurn;
+	/**
+	 * How many items there are in the boiler's fuel slot, and how many of them
+	 * the boil step has lit up.
+	 */
+	int[] solidCount;
+	int[] solidUsed;
+	/**
+	 * The fraction of a mB of steam left over from the last boil, carried over to
+	 * the next one so that nothing is lost to rounding.
+	 */
+	double[] steamRemainder;
+	int[] flags;
+	/**
+	 * The game time up to which the boiler's tanks are up to date.
+	 */
+	long[] since;
+	/**
+	 * For scheduled boilers: the game time they're due to wake up. For dormant
+	 * ones: the game time of their next recheck.
+	 */
+	long[] wakeAt;
+	/**
+	 * For scheduled boilers: how much water goes in and how much steam comes out
+	 * on every tick until they wake up.
+	 */
+	int[] waterPerTick;
+	double[] steamPerTick;
+	/**
+	 * Spreads boilers over the ticks of a {@link gazcreations.borkler.BorklerConfig#TICK_INTERVAL}.
+	 * Derived from the boiler's position.
+	 */
+	int[] stagger;
+	/**
+	 * The boiler's level of detail: {@link BoilerTanks#NEAR},
+	 * {@link BoilerTanks#FAR} or {@link BoilerTanks#LAZY}.
+	 */
+	byte[] lod;
+
+	BoilerTanks(int capacity) {
+		owners = new BorklerTileEntity[capacity];
+		water = new int[capacity];
+		fuel = new int[capacity];
+		fuelType = new Fluid[capacity];
+		steam = new int[capacity];
+		burnTime = new int[capacity];
+		solidBurn = new int[capacity];
+		solidCount = new int[capacity];
+		solidUsed = new int[capacity];
+		steamRemainder = new double[capacity];
+		flags = new int[capacity];
+		since = new long[capacity];
+		wakeAt = new long[capacity];
+		waterPerTick = new int[capacity];
+		steamPerTick = new double[capacity];
+		stagger = new int[capacity];
+		lod = new byte[capacity];
+	}
+
+	/**
+	 * Hands out a fresh, empty slot to a boiler.
+	 * 
+	 * @return the slot's index
+	 */
+	int allocate(BorklerTileEntity owner) {
+		if (size == owners.length)
+			grow(Math.max(4, size * 2));
+		int slot = size++;
+		owners[slot] = owner;
+		water[slot] = 0;
+		fuel[slot] = 0;
+		fuelType[slot] = Fluids.EMPTY;
+		steam[slot] = 0;
+		burnTime[slot] = 0;
+		solidBurn[slot] = 0;
+		solidCount[slot] = 0;
+		solidUsed[slot] = 0;
+		steamRemainder[slot] = 0;
+		flags[slot] = 0;
+		stagger[slot] = 0;
+		lod[slot] = NEAR;
+		return slot;
+	}
+
+	/**
+	 * Copies one slot's contents into another (possibly in another instance).
+	 * The owner and the tick-related flags are left alone, but pending rescans
+	 * and syncs carry over.
+	 */
+	void copy(int from, BoilerTanks dest, int to) {
+		dest.water[to] = water[from];
+		dest.fuel[to] = fuel[from];
+		dest.fuelType[to] = fuelType[from];
+		dest.steam[to] = steam[from];
+		dest.burnTime[to] = burnTime[from];
+		dest.solidBurn[to] = solidBurn[from];
+		dest.solidCount[to] = solidCount[from];
+		dest.solidUsed[to] = solidUsed[from];
+		dest.steamRemainder[to] = steamRemainder[from];
+		dest.stagger[to] = stagger[from];
+		dest.lod[to] = lod[from];
+		dest.since[to] = since[from];
+		dest.wakeAt[to] = wakeAt[from];
+		dest.waterPerTick[to] = waterPerTick[from];
+		dest.steamPerTick[to] = steamPerTick[from];
+		dest.flags[to] = (dest.flags[to] & ~(ACTIVE | RESCAN | SYNC)) | (flags[from] & (ACTIVE | RESCAN | SYNC));
+	}
+
+	/**
+	 * Marks a slot as free. It will only be reclaimed by
+	 * {@link BoilerTanks#compact()}.
+	 */
+	void release(int slot) {
+		owners[slot] = null;
+		fuelType[slot] = Fluids.EMPTY;
+		flags[slot] = DEAD;
+	}
+
+	/**
+	 * Squeezes out released slots, moving the survivors down and telling their
+	 * owners where they ended up.
+	 */
+	void compact() {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if ((flags[i] & DEAD) != 0)
+				continue;
+			if (i != kept) {
+				owners[kept] = owners[i];
+				copy(i, this, kept);
+				flags[kept] = flags[i];
+				owners[kept].slot = kept;
+			}
+			kept++;
+		}
+		Arrays.fill(owners, kept, size, null);
+		Arrays.fill(fuelType, kept, size, null);
+		size = kept;
+	}
+
+	private void grow(int capacity) {
+		owners = Arrays.copyOf(owners, capacity);
+		water = Arrays.copyOf(water, capacity);
+		fuel = Arrays.copyOf(fuel, capacity);
+		fuelType = Arrays.copyOf(fuelType, capacity);
+		steam = Arrays.copyOf(steam, capacity);
+		burnTime = Arrays.copyOf(burnTime, capacity);
+		solidBurn = Arrays.copyOf(solidBurn, capacity);
+		solidCount = Arrays.copyOf(solidCount, capacity);
+		solidUsed = Arrays.copyOf(solidUsed, capacity);
+		steamRemainder = Arrays.copyOf(steamRemainder, capacity);
+		stagger = Arrays.copyOf(stagger, capacity);
+		lod = Arrays.copyOf(lod, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		since = Arrays.copyOf(since, capacity);
+		wakeAt = Arrays.copyOf(wakeAt, capacity);
+		waterPerTick = Arrays.copyOf(waterPerTick, capacity);
+		steamPerTick = Arrays.copyOf(steamPerTick, capacity);
+	}
+
+	/**
+	 * Marks the boilers in the first n slots whose turn it is as
+	 * {@link BoilerTanks#TICKING}, and the rest as not. With a tick interval,
+	 * awake boilers take turns, spread out by position; lazy ones never get one.
+	 */
+	void takeTurns(int n, long now, long nearInterval, long farInterval) {
+		for (int i = 0; i < n; i++) {
+			int f = flags[i];
+			boolean turn = false;
+			if ((f & AWAKE) != 0 && lod[i] != LAZY)
+				turn = Math.floorMod(now + stagger[i], lod[i] == NEAR ? nearInterval : farInterval) == 0;
+			flags[i] = turn ? (f | TICKING) : (f & ~TICKING);
+		}
+	}
+
+	/**
+	 * Boils the {@link BoilerTanks#TICKING} boilers in slots [from, to), up to a
+	 * given game time. Only ever touches those slots, so different ranges can be
+	 * boiled at the same time. See {@link BoilerManager#boil(int, long)}. <br>
+	 * Runs for every ticking boiler on every tick, so it mustn't allocate
+	 * anything.
+	 */
+	void boil(int from, int to, long now, int waterUse, double conversionRate) {
+		final double steamPerTick = waterUse * conversionRate;
+		final int[] flags = this.flags;
+		final int[] water = this.water;
+		final int[] fuel = this.fuel;
+		final int[] steam = this.steam;
+		final int[] burnTime = this.burnTime;
+		final int[] solidBurn = this.solidBurn;
+		final int[] solidCount = this.solidCount;
+		final int[] solidUsed = this.solidUsed;
+		final double[] remainder = this.steamRemainder;
+		for (int i = from; i < to; i++) {
+			int f = flags[i];
+			if ((f & TICKING) == 0)
+				continue;
+			f &= ~(WANT_ACTIVE | CONSUME_SOLID);
+			// no cap needed: the loop below stops as soon as the boiler runs out of
+			// water, fuel or room for steam, however long it's been
+			int left = (int) Math.max(1, Math.min(now - since[i], Integer.MAX_VALUE));
+			since[i] = now;
+			solidUsed[i] = 0;
+			boolean lit = false;
+			while (left > 0) {
+				lit = false;
+				if (water[i] <= 0 || steam[i] >= STEAM_CAPACITY) {
+					// nothing to boil, or nowhere to put it. That won't change by itself.
+					break;
+				} else if (burnTime[i] > 0) {
+					// so, we have water, the boiler is lit, and the steam tank is not full.
+					// It's boiling time, boyos.
+					int ticks;
+					int amount;
+					double made;
+					if (water[i] < waterUse) {
+						// the last few drops
+						ticks = 1;
+						amount = water[i];
+						made = remainder[i] + amount * conversionRate;
+					} else {
+						// as many whole ticks as we can before something happens
+						ticks = Math.min(Math.min(left, burnTime[i]), water[i] / waterUse);
+						ticks = Math.min(ticks, ticksToFill(i, steamPerTick));
+						amount = ticks * waterUse;
+						made = remainder[i] + ticks * steamPerTick;
+					}
+					water[i] -= amount;
+					int whole = (int) made;
+					steam[i] = Math.min(STEAM_CAPACITY, steam[i] + whole);
+					remainder[i] = made - whole;
+					burnTime[i] -= ticks;
+					left -= ticks;
+					lit = true;
+					f |= PROGRESS;
+				} else if (solidBurn[i] > 0 && solidUsed[i] < solidCount[i]) {
+					// there's solid fuel in the burner. The items themselves are taken out on
+					// commit.
+					burnTime[i] = solidBurn[i];
+					solidUsed[i]++;
+					left--;
+					lit = true;
+					f |= CONSUME_SOLID | PROGRESS;
+				} else if (fuel[i] > 0) {
+					// ok, there is liquid fuel in the boiler. We'll burn a bit of it.
+					int bitOFuel = Math.min(fuel[i], 5);
+					burnTime[i] = FuelIndex.getBurnTime(fuelType[i]) * bitOFuel;
+					fuel[i] -= bitOFuel;
+					if (fuel[i] == 0)
+						fuelType[i] = Fluids.EMPTY;
+					left--;
+					lit = true;
+					f |= PROGRESS;
+				} else {
+					burnTime[i] = 0; // just in case
+					break;
+				}
+			}
+			if (lit)
+				f |= WANT_ACTIVE;
+			flags[i] = f;
+		}
+	}
+
+	/**
+	 * @return how many ticks of boiling it'll take to fill up a boiler's steam
+	 *         tank. At least 1.
+	 */
+	int ticksToFill(int i, double steamPerTick) {
+		if (steamPerTick <= 0)
+			return Integer.MAX_VALUE;
+		double room = STEAM_CAPACITY - steam[i] - steamRemainder[i];
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.ceil(room / steamPerTick)));
+	}
+}
@@ -40,9 +40,11 @@ import net.minecraft.state.BooleanProperty;
 import net.minecraft.state.StateContainer;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.ActionResultType;
+import net.minecraft.util.Direction;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.BlockRayTraceResult;
+import net.minecraft.util.text.TranslationTextComponent;
 import net.minecraft.world.IBlockReader;
 import net.minecraft.world.IWorld;
 import net.minecraft.world.IWorldReader;
@@ -127,6 +129,13 @@ public class BorklerBlock extends Block implements ILiquidContainer {
 				return ActionResultType.PASS;
 			}
 			BorklerTileEntity te = getTileEntity(worldIn, pos);
+			if (player.isSneaking() && held.isEmpty()) {
+				// sneaky empty-handed clicks set up what the clicked face does
+				SideMode mode = te.cycleSideMode(hit.getFace());
+				player.sendStatusMessage(new TranslationTextComponent("borkler.side_mode.changed",
+						hit.getFace().getString(), new TranslationTextComponent(mode.getTranslationKey())), true);
+				return ActionResultType.SUCCESS;
+			}
 			NetworkHooks.openGui((ServerPlayerEntity) player, te, ((t) -> {
 				BorklerData.encodePos(te.getPos(), t);
 			}));
@@ -156,17 +165,23 @@ public class BorklerBlock extends Block implements ILiquidContainer {
 	}
 
 	/**
-	 * Executes a quick check to see if this block's new neighbor is a
-	 * {@link TileEntity}. If so, forces this Borkler's {@link BorklerTileEntity} to
-	 * update its list of possible adjacent FluidHandlers, regarding direction. <br>
-	 * See {@link BorklerTileEntity#updateFluidConnections()}.
+	 * Lets this Borkler's {@link BorklerTileEntity} know something changed on one
+	 * of its sides. It only takes another look if the neighbor there isn't the
+	 * one it already knows, and only wakes up if that look turns up a different
+	 * neighbor. <br>
+	 * See {@link BorklerTileEntity#neighborChanged(Direction)}.
 	 */
 	@Override
 	public void onNeighborChange(BlockState state, IWorldReader world, BlockPos pos, BlockPos neighbor) {
-		gazcreations.borkler.Borkler.LOGGER.info("A Borkler has been notified of changes to its neighbors.");
 		BorklerTileEntity te = this.getTileEntity(world, pos);
-		te.updateFluidConnections();
-		te.updateItemConnections();
+		if (te == null)
+			return;
+		for (Direction d : Direction.values()) {
+			if (pos.offset(d).equals(neighbor)) {
+				te.neighborChanged(d);
+				break;
+			}
+		}
 	}
 
 	/**
@@ -209,8 +224,7 @@ public class BorklerBlock extends Block implements ILiquidContainer {
 		if (stack.hasDisplayName()) {
 			te.setCustomName(stack.getDisplayName());
 		}
-		te.updateFluidConnections();
-		te.updateItemConnections();
+		te.requestRescan();
 	}
 
 	/**
@@ -218,7 +232,7 @@ public class BorklerBlock extends Block implements ILiquidContainer {
 	 */
 	@Override
 	public boolean canContainFluid(IBlockReader arg0, BlockPos arg1, BlockState arg2, Fluid arg3) {
-		return getTileEntity(arg0, arg1).getTankForFluid(arg3) >= 0;
+		return TankClassifier.getTank(arg3) >= 0;
 	}
 
 	/**
@@ -232,8 +246,8 @@ public class BorklerBlock extends Block implements ILiquidContainer {
 	@Override
 	public boolean receiveFluid(IWorld arg0, BlockPos arg1, BlockState arg2, FluidState arg3) {
 		BorklerTileEntity tileEntity = getTileEntity(arg0, arg1);
-		int tank = tileEntity.getTankForFluid(arg3.getFluid());
-		if (tank < 0 || tank == 2)
+		int tank = TankClassifier.getTank(arg3.getFluid());
+		if (tank != TankClassifier.WATER && tank != TankClassifier.FUEL)
 			return false;
 		if (tileEntity.getTankCapacity(tank) - tileEntity.getFluidInTank(tank).getAmount() < 1000) // TODO not hardcode
 																									// bucket volume
@@ -245,13 +259,21 @@ public class BorklerBlock extends Block implements ILiquidContainer {
 	}
 
 	/**
-	 * Overriden to drop items in the Boiler's inventory if it is destroyed.
+	 * Overriden to drop items in the Boiler's inventory, fuel reserve included, if
+	 * it is destroyed. Being harvested by a player is only one way to go: an
+	 * explosion, a piston or a /setblock all end up here too.
 	 */
 	@Override
-	public void onBlockHarvested(World worldIn, BlockPos pos, BlockState state, PlayerEntity player) {
-		super.onBlockHarvested(worldIn, pos, state, player);
-		getTileEntity(worldIn, pos).remove();
-		InventoryHelper.dropInventoryItems(worldIn, pos, getTileEntity(worldIn, pos));
+	@SuppressWarnings("deprecation")
+	public void onReplaced(BlockState state, World worldIn, BlockPos pos, BlockState newState, boolean isMoving) {
+		if (!state.isIn(newState.getBlock())) {
+			TileEntity te = worldIn.getTileEntity(pos);
+			if (te instanceof BorklerTileEntity) {
+				InventoryHelper.dropInventoryItems(worldIn, pos, (BorklerTileEntity) te);
+				((BorklerTileEntity) te).dropFuelReserve();
+			}
+		}
+		super.onReplaced(state, worldIn, pos, newState, isMoving);
 	}
 
 }
@@ -20,48 +20,49 @@
 package gazcreations.borkler.blocks;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import gazcreations.borkler.BorklerConfig;
 import gazcreations.borkler.Index;
+import gazcreations.borkler.api.ISteamProvider;
+import gazcreations.borkler.api.ISteamReceiver;
+import gazcreations.borkler.api.SteamCapabilities;
 import gazcreations.borkler.compat.MekaBorkler;
+import gazcreations.borkler.compat.MekanismCompat;
 import gazcreations.borkler.container.BorklerContainer;
+import gazcreations.borkler.network.BorklerChunkUpdate;
+import gazcreations.borkler.network.BorklerSnapshot;
 import gazcreations.borkler.recipes.BorklerFuel;
-import it.unimi.dsi.fastutil.objects.ObjectArraySet;
+import gazcreations.borkler.recipes.SolidFuelIndex;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.fluid.Fluid;
 import net.minecraft.fluid.Fluids;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.InventoryHelper;
 import net.minecraft.inventory.container.Container;
-import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.network.NetworkManager;
-import net.minecraft.network.play.server.SUpdateTileEntityPacket;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.tags.FluidTags;
-import net.minecraft.tileentity.ITickableTileEntity;
 import net.minecraft.tileentity.LockableTileEntity;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.concurrent.ThreadTaskExecutor;
 import net.minecraft.util.concurrent.TickDelayedTask;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TranslationTextComponent;
 import net.minecraft.world.IBlockReader;
 import net.minecraft.world.World;
-import net.minecraftforge.common.ForgeHooks;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.LazyOptional;
-import net.minecraftforge.common.util.NonNullConsumer;
 import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidHandler;
@@ -76,12 +77,14 @@ import net.minecraftforge.registries.ForgeRegistries;
  * The Borkler Tile Entity. The heart of this mod, if you will.
  * <p>
  * This class handles all of the boiler's processes - even though it shouldn't.
- * Consuming fluids, outputting fluids, burning stuff, etc.
+ * Consuming fluids, outputting fluids, burning stuff, etc. <br>
+ * It is not ticked by the world, but by its {@link BoilerManager}, which lets
+ * idle boilers sleep.
  * 
  * @author gazotti
  *
  */
-public class BorklerTileEntity extends LockableTileEntity implements ITickableTileEntity, IFluidHandler, IItemHandler {
+public class BorklerTileEntity extends LockableTileEntity implements IFluidHandler, IItemHandler, ISteamProvider {
 
 	/**
 	 * A set of valid {@link Fluid} types to use as fuel.
@@ -138,57 +141,155 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	private byte tier;
 
 	/**
-	 * Hereby referred interchangeably to as tank #0.
+	 * Where this boiler's water (tank #0), fuel (tank #1), steam (tank #2), burn
+	 * time and active state are kept. While the boiler is loaded on the server,
+	 * this is its {@link BoilerManager}'s storage, shared with every other boiler
+	 * in the world; otherwise, it's a single-slot storage of its own. <br>
+	 * A word on burn time, since it's a bit trickier: a positive, non-zero burn
+	 * time indicates that the boiler is lit, consuming water and producing steam.
+	 * Mind you that it does not reflect the amount of liquid or solid fuel left in
+	 * the boiler's tank or inventory, since it may have just used up its last unit
+	 * of fuel to remain powered for burnTime ticks.
 	 */
-	private FluidStack water;
-	/**
-	 * Hereby referred interchangeably to as tank #1.
-	 */
-	private FluidStack fuel;
+	BoilerTanks tanks;
+
 	/**
-	 * Hereby referred interchangeably to as tank #2. Output only.
+	 * This boiler's index in {@link BorklerTileEntity#tanks}.
 	 */
-	private FluidStack steam;
+	int slot;
+
 	/**
 	 * A single inventory slot for up to 64 burnables.
 	 */
 	private final Inventory solidFuel;
+
 	/**
-	 * This one is a bit trickier. A positive, non-zero burn time indicates that the
-	 * boiler is active, consuming water and producing steam. A zero burn time
-	 * indicates that the boiler is currently not active, not consuming water and
-	 * not outputting steam. <br>
-	 * Mind you that a positive burnTime does not reflect the amount of liquid or
-	 * solid fuel left in the boiler's tank or inventory, since it may have just
-	 * used up its last unit of fuel to remain powered for burnTime ticks.
+	 * Networking, baby.<br>
+	 * The game time this TE's data was last sent to the client. Data is sent at
+	 * most every {@link BorklerConfig#SYNC_INTERVAL} ticks, as to not lag the whole
+	 * thing out by synchronizing every tick. A tradeoff, of course, but a welcome
+	 * one. See {@link BoilerManager}.
 	 */
-	private int burnTime;
+	long lastClientUpdate;
 
 	/**
-	 * Whether this boiler is currently operating. This is used mostly for rendering
-	 * purposes.
+	 * The players that have this boiler's GUI open. Only they get to know what's in
+	 * its tanks; see {@link BorklerTileEntity#collectUpdate(BorklerChunkUpdate)}.
+	 * Server side only.
 	 */
-	private boolean isActive;
+	private final List<ServerPlayerEntity> viewers = new ArrayList<>(1);
 
 	/**
-	 * Networking, baby.<br>
-	 * The number of ticks since the server has sent this TE's data to the client.
-	 * Data will be synchronized after a few of those, as to not lag the whole thing
-	 * out by synchronizing every tick. A tradeoff, of course, but a welcome one.
+	 * What the viewers were last told, so only what changed since gets sent. A new
+	 * viewer doesn't know anything yet, so everybody gets the whole thing then.
+	 */
+	private final BorklerSnapshot synced = new BorklerSnapshot();
+	private final BorklerSnapshot current = new BorklerSnapshot();
+	private boolean fullSync;
+
+	/**
+	 * How many turns a consumer that wouldn't take any steam is left alone for.
+	 */
+	private static final byte FULL_BACKOFF = 8;
+
+	/**
+	 * Steam, ready to be handed out. Reused, so don't go keeping it.
+	 */
+	private final FluidStack steamStack = new FluidStack(Index.Fluids.STEAMSOURCE, 0);
+
+	/**
+	 * Water and fuel to ask the neighbors for. Reused, same as
+	 * {@link BorklerTileEntity#steamStack}; the fuel one is only replaced when the
+	 * kind of fuel changes.
+	 */
+	private final FluidStack waterStack = new FluidStack(Fluids.WATER, 0);
+	private FluidStack fuelStack;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * Which side gets first dibs on steam next time. See
+	 * {@link BorklerTileEntity#distributeSteam()}.
+	 */
+	private int steamCursor;
+
+	/**
+	 * For each side, how many more turns its consumer is assumed to be full for.
+	 */
+	private final byte[] fullFor = new byte[6];
+
+	/**
+	 * Up to 6 fluid connections for this boiler, one per side. Kept up to date by
+	 * {@link BorklerTileEntity#updateFluidConnections()}. <br>
+	 */
+	private final ConnectionRegistry<IFluidHandler> fluidConnections;
+
+	/**
+	 * What each face of this boiler is allowed to do, by {@link Direction#getIndex()}.
 	 */
-	private byte ticksSinceLastClientUpdate;
+	private final SideMode[] sideModes = new SideMode[] { SideMode.AUTO, SideMode.AUTO, SideMode.AUTO,
+			SideMode.AUTO, SideMode.AUTO, SideMode.AUTO };
+
+	private static final int ALL_SIDES = 0b111111;
+
+	/**
+	 * Sides to look at on the next rescan, by {@link Direction#getIndex()}.
+	 */
+	private int pendingSides;
 
 	/**
-	 * A true value means that this entity has changed since its last configuration.
-	 * Used along with {@link BorklerTileEntity#ticksSinceLastClientUpdate} to
-	 * determine whether the server should send data to the client.
+	 * Sides that couldn't be looked at because their chunk wasn't loaded.
 	 */
+	private int waitingSides;
 
 	/**
-	 * A Set containing up to 6 fluid connections for this boiler. This set is
-	 * always populated by {@link BorklerTileEntity#updateFluidConnections()}. <br>
+	 * The tile entity found on each side by the last rescan, by
+	 * {@link Direction#getIndex()}. See
+	 * {@link BorklerTileEntity#neighborChanged(Direction)}.
 	 */
-	private Set<LazyOptional<IFluidHandler>> fluidConnections;
+	private final TileEntity[] neighbors = new TileEntity[6];
+
+	/**
+	 * Cacheable values for the fluid handlers of faces whose {@link SideMode} is
+	 * not {@link SideMode#AUTO}.
+	 */
+	@SuppressWarnings("unchecked")
+	private final LazyOptional<IFluidHandler>[] sideFluidCapabilities = new LazyOptional[6];
+
+	/**
+	 * Keeps track of which fluid connections are worth asking for water and fuel.
+	 */
+	private final IntakePlanner intake = new IntakePlanner();
+
+	/**
+	 * What other threads fill and drain against. See {@link TankCredits}.
+	 */
+	private final TankCredits<Fluid> credits = new TankCredits<>(BoilerTanks.WATER_CAPACITY,
+			BoilerTanks.FUEL_CAPACITY);
+
+	/**
+	 * The thread this boiler's tanks belong to, once it's been loaded on the
+	 * server. Anybody else goes through {@link BorklerTileEntity#credits}.
+	 */
+	private volatile Thread serverThread;
+
+	/**
+	 * Whether this boiler is already waiting for the server thread to catch up on
+	 * what other threads did. See {@link BorklerTileEntity#catchUpOffThread()}.
+	 */
+	private final AtomicBoolean offThreadQueued = new AtomicBoolean();
+
+	/**
+	 * Keeps track of which item connections are worth asking for solid fuel.
+	 */
+	private final IntakePlanner hunger = new IntakePlanner();
+
+	/**
+	 * Solid fuel a hungry boiler keeps on top of whatever's in its fuel slot. Its
+	 * count can go well past the item's stack size. See
+	 * {@link BorklerConfig#FUEL_BUFFER}.
+	 */
+	private ItemStack fuelReserve = ItemStack.EMPTY;
 
 	/**
 	 * A cacheable value for this entity's Capability<IFluidHandler>.
@@ -196,39 +297,59 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	private LazyOptional<IFluidHandler> fluidHandlerCapability;
 
 	/**
-	 * A Set containing up to 6 item connections for this boiler.
+	 * Up to 6 item connections for this boiler, one per side.
 	 */
-	private Set<LazyOptional<IItemHandler>> itemConnections;
+	private final ConnectionRegistry<IItemHandler> itemConnections;
 
 	/**
 	 * A cacheable value for this entity's Capability<IItemHandler>.
 	 */
 	private LazyOptional<IItemHandler> itemHandlerCapability;
 
+	/**
+	 * Up to 6 neighbors that take steam through {@link ISteamReceiver}, one per
+	 * side. Preferred over {@link BorklerTileEntity#fluidConnections} when it comes
+	 * to handing out steam.
+	 */
+	private final ConnectionRegistry<ISteamReceiver> steamReceivers;
+
+	/**
+	 * A cacheable value for this entity's Capability<ISteamProvider>.
+	 */
+	private LazyOptional<ISteamProvider> steamProviderCapability;
+
 	/**
 	 * A cacheable value for this entity's Capability<IGasHandler> (Mekanism).
 	 */
 	private LazyOptional<MekaBorkler> gasHandlerWrapper;
 
 	/**
-	 * A constructor. Populates the Borkler's tanks with empty FluidStacks,
-	 * initializes its inventory and sets burnTime to zero.
+	 * This boiler's Mekanism side of things, if Mekanism is loaded. See
+	 * {@link BorklerTileEntity#getGasHandler()}.
+	 */
+	private MekaBorkler gasHandler;
+
+	/**
+	 * A constructor. Gives the Borkler empty tanks of its own, initializes its
+	 * inventory and sets burnTime to zero.
 	 * 
 	 */
 	public BorklerTileEntity(IBlockReader world) {
 		super(Index.BORKLER_TE_TYPE);
 		this.tier = 1;
-		this.water = new FluidStack(Fluids.WATER, 0);
-		this.fuel = new FluidStack(Fluids.EMPTY, 0);
-		this.steam = new FluidStack(Index.Fluids.STEAMSOURCE, 0);
+		this.tanks = new BoilerTanks(1);
+		this.slot = tanks.allocate(this);
 		this.solidFuel = new Inventory(1) {
 
 			/**
-			 * Calls this TileEntity's markDirty() method.
+			 * Calls this TileEntity's markDirty() method, and wakes it up, since somebody
+			 * just touched its fuel.
 			 */
 			@Override
 			public void markDirty() {
+				BorklerTileEntity.this.refreshSolidFuel();
 				BorklerTileEntity.this.markDirty();
+				BorklerTileEntity.this.wake();
 			}
 
 			/**
@@ -236,20 +357,32 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 			 */
 			@Override
 			public boolean isItemValidForSlot(int slot, ItemStack stack) {
-				List<Item> hardcoded = new ArrayList<>();
-				hardcoded.add(Items.BUCKET);
-				return hardcoded.contains(stack.getItem()) || stack.isEmpty() || ForgeHooks.getBurnTime(stack) > 0;
+				return isValidSolidFuel(stack);
+			}
+
+			/**
+			 * Somebody opened this boiler's GUI. They'll be wanting its tank levels.
+			 */
+			@Override
+			public void openInventory(PlayerEntity player) {
+				if (player instanceof ServerPlayerEntity && !viewers.contains(player)) {
+					viewers.add((ServerPlayerEntity) player);
+					fullSync = true;
+					BorklerTileEntity.this.markDirty();
+				}
+			}
+
+			@Override
+			public void closeInventory(PlayerEntity player) {
+				viewers.remove(player);
 			}
 		};
-		this.burnTime = 0;
-		this.isActive = false;
-		this.fluidConnections = Collections.emptySet();
-		this.itemConnections = Collections.emptySet();
+		this.fluidConnections = new ConnectionRegistry<>(this, CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY);
+		this.itemConnections = new ConnectionRegistry<>(this, CapabilityItemHandler.ITEM_HANDLER_CAPABILITY);
+		this.steamReceivers = new ConnectionRegistry<>(this, SteamCapabilities.STEAM_RECEIVER);
 		this.world = (World) world;
-		if (world != null) { // index TEs will not run this
-			addFutureServerTask(this.world, () -> updateFluidConnections(), false);
-			addFutureServerTask(this.world, () -> updateItemConnections(), false);
-		}
+		if (world != null) // index TEs will not run this
+			requestRescan();
 	}
 
 	/**
@@ -265,26 +398,499 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 		return this.solidFuel;
 	}
 
+	/**
+	 * Marks this TE as changed, and, if anybody is looking at it, asks for its data
+	 * to be sent to them. The sending itself is done by the {@link BoilerManager}
+	 * at the end of the tick, once per boiler no matter how many times this was
+	 * called. See {@link BorklerTileEntity#collectUpdate(BorklerChunkUpdate)}.
+	 */
 	@Override
 	public void markDirty() {
-		if (this.world != null) {
-			if (this.ticksSinceLastClientUpdate > 1) {
-				addFutureServerTask(world, () -> this.world.notifyBlockUpdate(getPos(),
-						getWorld().getBlockState(getPos()), getWorld().getBlockState(getPos()), 3), true);
-				this.ticksSinceLastClientUpdate = 0;
-			}
+		if (!viewers.isEmpty() && this.world != null && !this.world.isRemote()
+				&& (tanks.flags[slot] & BoilerTanks.SYNC) == 0) {
+			BoilerManager manager = BoilerManager.getIfPresent(world);
+			if (manager != null)
+				manager.markForSync(this);
 		}
 		super.markDirty();
 	}
 
+	/**
+	 * Adds what changed in this TE since last time to an update of its own, along
+	 * with the players that have its GUI open, and forgets about those who don't
+	 * anymore. Called by the {@link BoilerManager}, which sends the update.
+	 * <p>
+	 * Nobody else gets anything: whether the boiler is burning is in its block
+	 * state, and that's all there is to see from the outside.
+	 */
+	void collectUpdate(BorklerChunkUpdate update) {
+		for (int i = viewers.size() - 1; i >= 0; i--) {
+			ServerPlayerEntity viewer = viewers.get(i);
+			if (viewer.hasDisconnected() || !(viewer.openContainer instanceof BorklerContainer)
+					|| !getPos().equals(((BorklerContainer) viewer.openContainer).getTileEntityPos()))
+				viewers.remove(i);
+		}
+		if (viewers.isEmpty())
+			return;
+		snapshot(current);
+		int mask = fullSync ? BorklerSnapshot.ALL : current.changedFrom(synced);
+		if (mask == 0)
+			return;
+		fullSync = false;
+		synced.copyFrom(current, BorklerSnapshot.ALL);
+		update.add(getPos(), current, mask);
+		update.addRecipients(viewers);
+	}
+
+	/**
+	 * Fills in a snapshot of this boiler, for the client.
+	 */
+	public void snapshot(BorklerSnapshot into) {
+		into.water = getAmountInTank(0);
+		into.fuelType = tanks.fuelType[slot];
+		into.fuel = getAmountInTank(1);
+		into.steam = getAmountInTank(2);
+		ItemStack stack = solidFuel.getStackInSlot(0);
+		into.solidFuelType = stack.getItem();
+		into.solidFuelCount = stack.getCount();
+	}
+
+	/**
+	 * Asks for this boiler to look for new neighbors on every side. The
+	 * {@link BoilerManager} will get to it within its time budget, usually on the
+	 * next tick.
+	 */
+	public void requestRescan() {
+		requestRescan(ALL_SIDES);
+	}
+
+	/**
+	 * Asks for this boiler to take another look at one of its sides. Any number of
+	 * requests made within the same tick end up in a single rescan.
+	 */
+	public void requestRescan(Direction side) {
+		requestRescan(1 << side.getIndex());
+	}
+
+	/**
+	 * Something happened next to this boiler. Forge says so for every
+	 * {@link TileEntity#markDirty()} of a neighbor, too, which busy machines do
+	 * every tick, so that side is only rescanned if the tile entity there isn't
+	 * the one found last time. The same neighbor keeps its capabilities, unless it
+	 * invalidates them, and that asks for a rescan by itself (see
+	 * {@link ConnectionRegistry}).
+	 */
+	public void neighborChanged(Direction side) {
+		if (world == null || world.isRemote())
+			return;
+		BlockPos neighbor = pos.offset(side);
+		if (world.isBlockLoaded(neighbor) && world.getTileEntity(neighbor) == neighbors[side.getIndex()])
+			return; // same neighbor, just busy
+		requestRescan(side);
+	}
+
+	private void requestRescan(int sides) {
+		if (world != null && !world.isRemote()) {
+			pendingSides |= sides;
+			tanks.flags[slot] |= BoilerTanks.RESCAN;
+		}
+	}
+
+	/**
+	 * Looks at the sides that were asked about since last time. Called by the
+	 * {@link BoilerManager}. <br>
+	 * Sides whose chunk isn't loaded are skipped, rather than loaded just to have
+	 * a look; they'll be looked at once their chunk comes around. See
+	 * {@link BorklerTileEntity#onNeighborChunkLoaded(int, int)}.
+	 * 
+	 * @return true if some sides are still waiting for their chunk.
+	 */
+	boolean rescanPendingSides() {
+		int sides = pendingSides;
+		pendingSides = 0;
+		for (Direction d : DIRECTIONS) {
+			int bit = 1 << d.getIndex();
+			if ((sides & bit) == 0)
+				continue;
+			if (rescanSide(d))
+				waitingSides &= ~bit;
+			else
+				waitingSides |= bit;
+		}
+		return waitingSides != 0;
+	}
+
+	/**
+	 * Looks for neighbors on one side, for whatever that side's {@link SideMode}
+	 * allows. A boiler that finds a different neighbor is woken up, since it may
+	 * have something to trade now; one that finds the same as before is left as it
+	 * is.
+	 * 
+	 * @return false if the neighbor's chunk isn't loaded.
+	 */
+	private boolean rescanSide(Direction d) {
+		SideMode mode = sideModes[d.getIndex()];
+		int found = ConnectionRegistry.SAME;
+		if (mode.hasFluids())
+			found |= fluidConnections.rescan(d);
+		else
+			fluidConnections.clear(d);
+		if (mode.items)
+			found |= itemConnections.rescan(d);
+		else
+			itemConnections.clear(d);
+		if (mode.push)
+			found |= steamReceivers.rescan(d);
+		else
+			steamReceivers.clear(d);
+		MekaBorkler gas = getGasHandler();
+		if (gas != null)
+			found |= gas.rescan(d, mode.push);
+		if ((found & ConnectionRegistry.CHANGED) != 0) {
+			// a new neighbor. Ask it again. The same neighbor keeps what's been learned
+			// about it, however often it pokes us
+			intake.reset(d.getIndex());
+			hunger.reset(d.getIndex());
+			wake();
+		}
+		// remembered, so that it can tell a busy neighbor from a new one
+		BlockPos neighbor = pos.offset(d);
+		neighbors[d.getIndex()] = world.isBlockLoaded(neighbor) ? world.getTileEntity(neighbor) : null;
+		return (found & ConnectionRegistry.UNLOADED) == 0;
+	}
+
+	/**
+	 * Lets this boiler know a chunk has been loaded. Sides that were waiting on it
+	 * get rescanned.
+	 * 
+	 * @return true if some sides are still waiting for their chunk.
+	 */
+	boolean onNeighborChunkLoaded(int chunkX, int chunkZ) {
+		for (Direction d : DIRECTIONS) {
+			int bit = 1 << d.getIndex();
+			if ((waitingSides & bit) == 0)
+				continue;
+			BlockPos neighbor = pos.offset(d);
+			if (neighbor.getX() >> 4 == chunkX && neighbor.getZ() >> 4 == chunkZ) {
+				waitingSides &= ~bit;
+				requestRescan(bit);
+			}
+		}
+		return waitingSides != 0;
+	}
+
 	/**
 	 * @return The burn time, in ticks, for a given solid fuel, corrected by
-	 *         {@link BorklerConfig#NERFACTOR}.
+	 *         {@link BorklerConfig#NERFACTOR}. See {@link SolidFuelIndex}.
 	 */
 	public static int nerfdBurnTime(ItemStack item) {
-		int defaultBT = ForgeHooks.getBurnTime(item);
-		return defaultBT > 0 ? Math.toIntExact(Math.round(Math.floor(defaultBT * BorklerConfig.CONFIG.NERFACTOR.get())))
-				: -1;
+		return SolidFuelIndex.getBurnTime(item);
+	}
+
+	/**
+	 * Checks whether an ItemStack may go into the boiler's fuel slot: anything
+	 * that burns, plus empty buckets.
+	 */
+	public static boolean isValidSolidFuel(ItemStack stack) {
+		return stack.isEmpty() || stack.getItem() == Items.BUCKET || SolidFuelIndex.isFuel(stack);
+	}
+
+	/**
+	 * Keeps the burn time of whatever's in the fuel slot handy for the
+	 * {@link BoilerManager}.
+	 */
+	private void refreshSolidFuel() {
+		ItemStack stack = solidFuel.getStackInSlot(0);
+		tanks.solidBurn[slot] = stack.isEmpty() ? 0 : Math.max(0, nerfdBurnTime(stack));
+		int count = stack.getCount();
+		if (!fuelReserve.isEmpty() && ItemHandlerHelper.canItemStacksStack(stack, fuelReserve))
+			count += fuelReserve.getCount(); // it all burns the same
+		tanks.solidCount[slot] = tanks.solidBurn[slot] > 0 ? count : 0;
+	}
+
+	/**
+	 * @return how much solid fuel this boiler has, reserve included.
+	 */
+	private int getSolidFuelStock() {
+		return solidFuel.getStackInSlot(0).getCount() + fuelReserve.getCount();
+	}
+
+	/**
+	 * @return how much solid fuel this boiler can hold, reserve included.
+	 */
+	private int getSolidFuelCapacity() {
+		return getSlotLimit(0) + BorklerConfig.CONFIG.FUEL_BUFFER.get();
+	}
+
+	/**
+	 * @return what kind of solid fuel this boiler has in stock; empty if none.
+	 */
+	private ItemStack stockKind() {
+		return fuelReserve.isEmpty() ? solidFuel.getStackInSlot(0) : fuelReserve;
+	}
+
+	/**
+	 * @return true if this boiler is {@link BorklerConfig#HUNGRY}, has somewhere
+	 *         to get solid fuel from, and is running low on a kind it may restock.
+	 */
+	boolean isHungry() {
+		if (!BorklerConfig.CONFIG.HUNGRY.get() || itemConnections.isEmpty())
+			return false;
+		ItemStack kind = stockKind();
+		return (kind.isEmpty() || isRestockable(kind))
+				&& IntakePlanner.isLow(getSolidFuelStock(), getSolidFuelCapacity());
+	}
+
+	/**
+	 * Restocks on solid fuel from neighboring inventories, whole stacks at a time,
+	 * until the fuel slot and the reserve are full. Only one kind of fuel is taken:
+	 * whatever is already in stock, or the first thing found that burns. Nothing
+	 * is taken that isn't {@link BorklerTileEntity#isRestockable(ItemStack)}, even
+	 * if it's what's in the slot: a lava bucket someone put in is no reason to
+	 * hoard more.
+	 * Inventories with nothing to burn are left alone for a while, see
+	 * {@link IntakePlanner}.
+	 * 
+	 * @return true if anything was pulled.
+	 */
+	private boolean pullSolidFuel() {
+		ItemStack kind = stockKind();
+		if (!kind.isEmpty() && !isRestockable(kind))
+			return false;
+		int room = getSolidFuelCapacity() - getSolidFuelStock();
+		boolean pulled = false;
+		for (int d = 0; d < 6 && room > 0; d++) {
+			IItemHandler source = itemConnections.get(d);
+			if (source == null || !sideModes[d].items || !hunger.shouldPoll(d, IntakePlanner.FUEL))
+				continue;
+			boolean found = false;
+			for (int i = 0; i < source.getSlots() && room > 0; i++) {
+				ItemStack stack = source.getStackInSlot(i);
+				if (stack.isEmpty())
+					continue;
+				if (!isRestockable(stack) || !kind.isEmpty() && !ItemHandlerHelper.canItemStacksStack(kind, stack))
+					continue;
+				ItemStack taken = source.extractItem(i, Math.min(room, stack.getCount()), false);
+				if (taken.isEmpty())
+					continue;
+				if (fuelReserve.isEmpty())
+					fuelReserve = taken;
+				else
+					fuelReserve.grow(taken.getCount());
+				kind = fuelReserve;
+				room -= taken.getCount();
+				found = true;
+			}
+			hunger.answered(d, IntakePlanner.FUEL, found ? IntakePlanner.FUEL : 0);
+			pulled |= found;
+		}
+		if (pulled)
+			topUpFuelSlot();
+		return pulled;
+	}
+
+	/**
+	 * @return whether a hungry boiler will take this stack off its neighbors'
+	 *         hands. Only stackable things that burn to nothing qualify; lava
+	 *         buckets and the like are left for people to put in.
+	 */
+	private static boolean isRestockable(ItemStack stack) {
+		return stack.isStackable() && !stack.hasContainerItem() && nerfdBurnTime(stack) > 0;
+	}
+
+	/**
+	 * Moves as much fuel as fits from the reserve into the fuel slot, if they hold
+	 * the same thing.
+	 */
+	private void topUpFuelSlot() {
+		if (fuelReserve.isEmpty())
+			return;
+		ItemStack inSlot = solidFuel.getStackInSlot(0);
+		if (!inSlot.isEmpty() && !ItemHandlerHelper.canItemStacksStack(inSlot, fuelReserve))
+			return;
+		int move = Math.min(fuelReserve.getCount(),
+				Math.min(getSlotLimit(0), fuelReserve.getMaxStackSize()) - inSlot.getCount());
+		if (move <= 0)
+			return;
+		// out of the reserve first, so the slot's markDirty counts it right
+		ItemStack moved = fuelReserve.split(move);
+		if (fuelReserve.isEmpty())
+			fuelReserve = ItemStack.EMPTY;
+		if (inSlot.isEmpty())
+			solidFuel.setInventorySlotContents(0, moved);
+		else {
+			inSlot.grow(move);
+			solidFuel.markDirty();
+		}
+	}
+
+	/**
+	 * Burns through some solid fuel: the fuel slot's first, then the reserve's.
+	 * The slot is then topped up from the reserve.
+	 */
+	private void consumeSolidFuel(int amount) {
+		int fromSlot = Math.min(amount, solidFuel.getStackInSlot(0).getCount());
+		if (amount > fromSlot) {
+			fuelReserve.shrink(amount - fromSlot);
+			if (fuelReserve.isEmpty())
+				fuelReserve = ItemStack.EMPTY;
+		}
+		if (fromSlot > 0)
+			decrStackSize(0, fromSlot);
+		topUpFuelSlot();
+		refreshSolidFuel(); // the slot may not have changed, but the reserve has
+	}
+
+	/**
+	 * Drops whatever's in the fuel reserve into the world, in proper stacks.
+	 * Called when the boiler is broken.
+	 */
+	public void dropFuelReserve() {
+		if (world != null)
+			while (!fuelReserve.isEmpty())
+				InventoryHelper.spawnItemStack(world, pos.getX(), pos.getY(), pos.getZ(),
+						fuelReserve.split(fuelReserve.getMaxStackSize()));
+		fuelReserve = ItemStack.EMPTY;
+	}
+
+	/**
+	 * Puts this boiler back into its {@link BoilerManager}'s tick loop, if it was
+	 * sleeping. Called whenever something happens that might give it work to do.
+	 */
+	public void wake() {
+		if ((tanks.flags[slot] & BoilerTanks.AWAKE) == 0 && world != null && !world.isRemote())
+			BoilerManager.get(world).wake(this);
+	}
+
+	/**
+	 * Lets the {@link BoilerManager} know that this boiler's tanks have been
+	 * changed from the outside. A boiler that's sleeping on the timing wheel only
+	 * needs a new wakeup time; anything else is woken up.
+	 */
+	private void reschedule() {
+		if (world != null && !world.isRemote())
+			BoilerManager.get(world).reschedule(this);
+	}
+
+	/**
+	 * If this boiler is sleeping on the timing wheel, brings its tanks up to date
+	 * before anybody looks at them.
+	 */
+	private void settle() {
+		if ((tanks.flags[slot] & BoilerTanks.SCHEDULED) != 0 && world != null && !isOffThread())
+			BoilerManager.get(world).settle(this);
+	}
+
+	/**
+	 * @return true if this is a loaded server-side boiler, and whoever's calling
+	 *         isn't on the server thread.
+	 */
+	private boolean isOffThread() {
+		Thread owner = serverThread;
+		return owner != null && owner != Thread.currentThread();
+	}
+
+	/**
+	 * Asks the server thread to catch up on what other threads did, unless it's
+	 * already been asked. Safe to call from anywhere.
+	 */
+	private void queueOffThread() {
+		if (offThreadQueued.compareAndSet(false, true))
+			BoilerManager.queueOffThread(this);
+	}
+
+	/**
+	 * Applies what other threads filled and drained to the tanks, and stops them
+	 * from doing any more until {@link BorklerTileEntity#publishCredits()}. Has to
+	 * come before taking in water or fuel, or sending out steam, on the server
+	 * thread.
+	 * 
+	 * @return true if the tanks have changed.
+	 */
+	private boolean reclaimCredits() {
+		if (serverThread == null)
+			return false;
+		settle();
+		if (!credits.reclaim())
+			return false;
+		tanks.water[slot] += credits.getWaterUsed();
+		if (credits.getFuelUsed() > 0) {
+			if (tanks.fuel[slot] <= 0) // it's burned through the old fuel in the meantime
+				tanks.fuelType[slot] = credits.getFuelUsedType();
+			tanks.fuel[slot] += credits.getFuelUsed();
+		}
+		tanks.steam[slot] -= credits.getSteamUsed();
+		markDirty();
+		return true;
+	}
+
+	/**
+	 * Same as {@link BorklerTileEntity#reclaimCredits()}, then lets other threads
+	 * fill and drain again, against what's in the tanks now.
+	 * 
+	 * @return true if the tanks have changed.
+	 */
+	private boolean publishCredits() {
+		if (serverThread == null || isRemoved())
+			return false;
+		boolean changed = reclaimCredits();
+		credits.publish(tanks.water[slot], tanks.fuelType[slot], tanks.fuel[slot], tanks.steam[slot]);
+		return changed;
+	}
+
+	/**
+	 * Catches up on what other threads did to this boiler's tanks, and does the
+	 * things they couldn't do themselves: marking it dirty, waking it up. Called
+	 * by the {@link BoilerManager}, on the server thread.
+	 */
+	void catchUpOffThread() {
+		offThreadQueued.set(false);
+		if (publishCredits())
+			reschedule();
+	}
+
+	/**
+	 * @return whether this boiler is asleep with nothing to do. See
+	 *         {@link BoilerManager}.
+	 */
+	public boolean isDormant() {
+		return (tanks.flags[slot] & (BoilerTanks.AWAKE | BoilerTanks.SCHEDULED)) == 0;
+	}
+
+	/**
+	 * @return true if there's at least one fluid handler, steam receiver or gas
+	 *         consumer next to this boiler.
+	 */
+	boolean hasFluidConnections() {
+		return !fluidConnections.isEmpty() || !steamReceivers.isEmpty()
+				|| (gasHandler != null && gasHandler.hasConnections());
+	}
+
+	/**
+	 * @return true if this boiler has anybody to push steam to, whether or not
+	 *         they've been taking any lately. Such a boiler can't be scheduled:
+	 *         its consumers want their steam every tick.
+	 */
+	boolean hasSteamConsumers() {
+		for (int d = 0; d < 6; d++)
+			if (sideModes[d].push && (fluidConnections.get(d) != null || steamReceivers.get(d) != null))
+				return true;
+		return gasHandler != null && gasHandler.hasConnections();
+	}
+
+	/**
+	 * @return true if somebody has this boiler's GUI open.
+	 */
+	boolean hasViewers() {
+		return !viewers.isEmpty();
+	}
+
+	/**
+	 * Forgets which consumers wouldn't take steam lately, so they're all asked
+	 * again on the next push.
+	 */
+	void forgetFullConsumers() {
+		Arrays.fill(fullFor, (byte) 0);
 	}
 
 	/**
@@ -294,7 +900,7 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 * @return whether the boiler is active or not
 	 */
 	public boolean isActive() {
-		return isActive;
+		return (tanks.flags[slot] & BoilerTanks.ACTIVE) != 0;
 	}
 
 	/**
@@ -323,10 +929,13 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 * @param active
 	 */
 	private final void setActive(final boolean active) {
-		if (this.isActive == active) {
+		if (isActive() == active) {
 			return; // nothing to do, nothing changed
 		}
-		this.isActive = active;
+		if (active)
+			tanks.flags[slot] |= BoilerTanks.ACTIVE;
+		else
+			tanks.flags[slot] &= ~BoilerTanks.ACTIVE;
 		if (world != null)
 			this.world.setBlockState(pos,
 					Index.Blocks.BORKLERBLOCK.getStateContainer().getBaseState().with(BorklerBlock.ACTIVE, active));
@@ -362,9 +971,9 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 						reachedLimit ? ItemHandlerHelper.copyStackWithSize(stack, limit) : stack);
 			} else {
 				existing.grow(reachedLimit ? limit : stack.getCount());
-
+				// growing a stack doesn't tell the inventory anything
+				solidFuel.markDirty();
 			}
-			markDirty();
 		}
 		return reachedLimit ? ItemHandlerHelper.copyStackWithSize(stack, stack.getCount() - limit) : ItemStack.EMPTY;
 	}
@@ -396,7 +1005,7 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 */
 	@Override
 	public boolean isItemValid(int slot, ItemStack stack) {
-		return solidFuel.isItemValidForSlot(0, stack);
+		return isValidSolidFuel(stack);
 	}
 
 	/**
@@ -404,7 +1013,7 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 */
 	@Override
 	public boolean isItemValidForSlot(int slot, ItemStack stack) {
-		return solidFuel.isItemValidForSlot(0, stack);
+		return isValidSolidFuel(stack);
 	}
 
 	/**
@@ -417,23 +1026,61 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	}
 
 	/**
-	 * @return The FluidStack in a given tank. FluidStack.EMPTY if the tank is empty
-	 *         or if the specified tank is not valid. <br>
-	 *         Again, DO NOT MODIFY THIS FLUIDSTACK.
+	 * @return A copy of the FluidStack in a given tank. FluidStack.EMPTY if the
+	 *         tank is empty or if the specified tank is not valid.
 	 */
 	@Override
 	public FluidStack getFluidInTank(int tank) {
+		if (tank == 1 && isOffThread())
+			// type and amount have to go together
+			return credits.shownFuel(BorklerTileEntity::fuelStack);
+		int amount = getAmountInTank(tank);
+		if (amount <= 0)
+			return FluidStack.EMPTY;
 		switch (tank) {
 		case 0:
-			return water;
+			return new FluidStack(Fluids.WATER, amount);
 		case 1:
-			return fuel;
+			return new FluidStack(tanks.fuelType[slot], amount);
 		case 2:
-			return steam;
+			return new FluidStack(Index.Fluids.STEAMSOURCE, amount);
 		}
 		return FluidStack.EMPTY;
 	}
 
+	private static FluidStack fuelStack(Fluid type, Integer amount) {
+		return type == null || amount <= 0 ? FluidStack.EMPTY : new FluidStack(type, amount);
+	}
+
+	/**
+	 * @return How many mB there are in a given tank; 0 if the tank number is not
+	 *         valid. Other threads get what the {@link TankCredits} show them,
+	 *         which is never half-way through a change.
+	 */
+	public int getAmountInTank(int tank) {
+		if (isOffThread()) {
+			switch (tank) {
+			case 0:
+				return credits.shownWater();
+			case 1:
+				return credits.shownFuel((type, amount) -> amount);
+			case 2:
+				return credits.shownSteam();
+			}
+			return 0;
+		}
+		settle();
+		switch (tank) {
+		case 0:
+			return tanks.water[slot];
+		case 1:
+			return tanks.fuel[slot];
+		case 2:
+			return tanks.steam[slot];
+		}
+		return 0;
+	}
+
 	/**
 	 * @return Input tanks (#0 and #1) have a capacity of 4B. Output tank (Steam,
 	 *         #2) has a capacity of 8B. TODO implement tiers.
@@ -442,11 +1089,11 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	public int getTankCapacity(int tank) {
 		switch (tank) {
 		case 0:
-			return 4000;
+			return BoilerTanks.WATER_CAPACITY;
 		case 1:
-			return 4000;
+			return BoilerTanks.FUEL_CAPACITY;
 		case 2:
-			return 8000;
+			return BoilerTanks.STEAM_CAPACITY;
 		}
 		return -1;
 	}
@@ -461,30 +1108,19 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 * @return
 	 */
 	public boolean isFluidValid(Fluid fluid) {
-		return getTankForFluid(fluid) > 0;
+		return TankClassifier.isInput(fluid);
 	}
 
 	/**
 	 * Valid fluids are water and liquid fuel. Steam is valid as a contained fluid,
-	 * but cannot be inserted from the outside.
+	 * but cannot be inserted from the outside. See {@link TankClassifier}.
 	 * 
 	 * @return Tank 0 can only hold water. Tank 1 can only hold liquid fuel. Tank 2
 	 *         can only hold steam.
 	 */
 	@Override
 	public boolean isFluidValid(int tank, FluidStack stack) {
-		switch (tank) {
-		case 0:
-			return stack.getFluid().isIn(FluidTags.WATER);
-		case 1:
-			// return validFuels.containsKey(stack.getFluid());
-			return BorklerFuel.getBurnTime(stack.getFluid(), world) > 0;
-		case 2:
-			return stack.getFluid().isEquivalentTo(Index.Fluids.STEAM)
-					|| stack.getFluid().isEquivalentTo(Index.Fluids.STEAMSOURCE)
-					|| stack.getFluid().isIn(FluidTags.getCollection().get(new ResourceLocation("forge:fluids/steam")));
-		}
-		return false;
+		return tank >= 0 && tank <= 2 && TankClassifier.getTank(stack.getFluid()) == tank;
 	}
 
 	/**
@@ -494,18 +1130,10 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 * 
 	 * @param fluid The {@link Fluid} to check
 	 * @return 0 if water, 1 if fuel, 2 if steam, or -1 if neither.
+	 * @see TankClassifier#getTank(Fluid)
 	 */
 	public byte getTankForFluid(Fluid fluid) {
-		if (fluid.isIn(FluidTags.WATER))
-			return 0;
-		// if (validFuels.containsKey(fluid)) {
-		if (BorklerFuel.getBurnTime(fluid, world) > 0) {
-			return 1;
-		}
-		if (fluid.isIn(FluidTags.getCollection().get(new ResourceLocation("forge:fluids/steam")))) {
-			return 2;
-		}
-		return -1;
+		return TankClassifier.getTank(fluid);
 	}
 
 	/**
@@ -520,28 +1148,6 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 		return stack.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY).isPresent();
 	}
 
-	/**
-	 * Will return the proper tank for a tank number (0-2).
-	 * 
-	 * @param index The tank number, from 0 to 2
-	 * @return one of the three FluidStacks representing water, fuel or steam, or
-	 *         {@link FluidStack#EMPTY} if the specified tank number is invalid.
-	 */
-	private FluidStack getTank(byte index) {
-		switch (index) {
-		case 0:
-			return this.water;
-		case 1:
-			gazcreations.borkler.Borkler.LOGGER
-					.info("Fuel is " + fuel.getDisplayName().getString() + ": " + fuel.getAmount());
-			return this.fuel;
-		case 2:
-			return this.steam;
-		default:
-			return FluidStack.EMPTY;
-		}
-	}
-
 	/**
 	 * Time to load up! Inserts a FluidStack into the boiler. Accepted fluids are
 	 * water and liquid fuel (currently, only lava). Steam cannot be inserted into
@@ -560,280 +1166,231 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 			return 0;
 		}
 		byte whereDoIPutThis = getTankForFluid(resource.getFluid());
-		if (whereDoIPutThis == -1 || whereDoIPutThis == 2)
+		if (whereDoIPutThis != TankClassifier.WATER && whereDoIPutThis != TankClassifier.FUEL)
 			// fluid not valid, won't fill
 			return 0;
-		if (action.simulate()) {
-			if (getTank(whereDoIPutThis).isEmpty()) {
-				// returns maximum amount of fluid that can fit into the tank
-				return Math.min(getTankCapacity(whereDoIPutThis), resource.getAmount());
-			} else {
-				// returns maximum amount of fluid that can fit into the tank
-				return Math.min(getTankCapacity(whereDoIPutThis) - getTank(whereDoIPutThis).getAmount(),
-						resource.getAmount());
-			}
+		if (isOffThread()) {
+			int filled = whereDoIPutThis == TankClassifier.WATER
+					? credits.takeWater(resource.getAmount(), action.execute())
+					: credits.takeFuel(resource.getFluid(), resource.getAmount(), action.execute());
+			if (filled > 0 && action.execute())
+				queueOffThread();
+			return filled;
 		}
+		// what other threads filled counts too, simulated or not. Only a real fill
+		// has to stop them until it's done
+		if (action.execute())
+			reclaimCredits();
+		else
+			publishCredits();
+		int stored = getAmountInTank(whereDoIPutThis);
+		if (whereDoIPutThis == TankClassifier.FUEL && stored > 0 && tanks.fuelType[slot] != resource.getFluid())
+			// Fuel mixtures are not supported at this time. Water mixtures... still
+			// thinking about that.
+			return 0;
+		// maximum amount of fluid that can fit into the tank
+		int filled = Math.min(getTankCapacity(whereDoIPutThis) - stored, resource.getAmount());
+		if (filled <= 0 || action.simulate())
+			return Math.max(filled, 0);
 		// if we got this far, this is not a simulation. Time to fill'er up.
-
-		FluidStack selectedTank = getTank(whereDoIPutThis);
-		if (selectedTank.isEmpty()) {
-			// initialize tank
-			selectedTank = new FluidStack(resource, Math.min(getTankCapacity(whereDoIPutThis), resource.getAmount()));
-			switch (whereDoIPutThis) {
-			case 0:
-				this.water = selectedTank;
-				break;
-			case 1:
-				this.fuel = selectedTank;
-				break;
-			default:
-				return 0; // we should never get here, plenty of checks by now
-			}
-			markDirty(); // this signals the game that stuff has changed
-			return selectedTank.getAmount(); // this is how much fluid was inserted
+		if (whereDoIPutThis == TankClassifier.WATER) {
+			tanks.water[slot] += filled;
 		} else {
-			if (!selectedTank.isFluidEqual(resource)) {
-				// Fuel mixtures are not supported at this time. Water mixtures... still
-				// thinking about that.
-				return 0;
-			}
-			int remainingCapacity = getTankCapacity(whereDoIPutThis) - selectedTank.getAmount();
-			if (resource.getAmount() < remainingCapacity) {
-				// everything fits!
-				selectedTank.grow(resource.getAmount());
-				markDirty();
-				return resource.getAmount();
-			} else {
-				// Tank is filled and there's fluid leftover
-				selectedTank.setAmount(getTankCapacity(whereDoIPutThis));
-				markDirty();
-				return remainingCapacity;
-			}
+			tanks.fuelType[slot] = resource.getFluid();
+			tanks.fuel[slot] += filled;
 		}
+		publishCredits();
+		markDirty(); // this signals the game that stuff has changed
+		reschedule();
+		return filled; // this is how much fluid was inserted
 	}
 
 	/**
-	 * Adds a {@link LazyOptional} to a {@link Set}, then adds a listener to that
-	 * LazyOptional prompting it to be removed from the specified set upon
-	 * invalidation.
-	 * 
-	 * @param <T>
-	 * @param set
-	 * @param element
-	 * @return
+	 * Looks for neighbors with an {@link IItemHandler}. See
+	 * {@link ConnectionRegistry}.
 	 */
-	public <T> void addWithListener(Set<LazyOptional<T>> set, LazyOptional<T> element) {
-		set.add(element);
-		if (element == null) {
-			return;
-		}
-		element.addListener(new NonNullConsumer<LazyOptional<T>>() {
-			@Override
-			public void accept(LazyOptional<T> t) {
-				gazcreations.borkler.Borkler.LOGGER
-						.debug("A Borkler's supplier has been invalidated: " + t.toString() + "/" + element.toString());
-				set.remove(element);
-			}
-		});
-	}
-
 	public void updateItemConnections() {
 		if (world.isRemote)
 			return;
-		Set<LazyOptional<IItemHandler>> consumers = new HashSet<LazyOptional<IItemHandler>>(7, 0.99f) {
-			private static final long serialVersionUID = 1L;
-
-			public boolean add(LazyOptional<IItemHandler> element) {
-				if (element == null || !element.isPresent())
-					return false;
-				return super.add(element);
-			}
-		};
 		gazcreations.borkler.Borkler.LOGGER
 				.debug("Borkler @" + world + " ," + pos + " has been politely asked to update its item connections.");
-		LazyOptional<IItemHandler> cap = null;
-		TileEntity te = null;
-		// Trigger warning: the following section may require subsequent use of
-		// eyebleach.
-		// up
-		if ((te = this.world.getTileEntity(getPos().offset(Direction.UP))) != null) {
-			cap = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.DOWN);
-			// if (cap.isPresent()) override of Set.add will prevent empty Optionals from
-			// being added
-			addWithListener(consumers, cap);
-		}
-		// down
-		if ((te = this.world.getTileEntity(getPos().offset(Direction.DOWN))) != null) {
-			cap = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.UP);
-			addWithListener(consumers, cap);
-		}
-		// east
-		if ((te = this.world.getTileEntity(getPos().offset(Direction.EAST))) != null) {
-			cap = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.WEST);
-			addWithListener(consumers, cap);
-		}
-		// west
-		if ((te = this.world.getTileEntity(getPos().offset(Direction.WEST))) != null) {
-			cap = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.EAST);
-			addWithListener(consumers, cap);
-		}
-		// north
-		if ((te = this.world.getTileEntity(getPos().offset(Direction.NORTH))) != null) {
-			cap = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.SOUTH);
-			addWithListener(consumers, cap);
-		}
-		// south
-		if ((te = this.world.getTileEntity(getPos().offset(Direction.SOUTH))) != null) {
-			cap = te.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, Direction.NORTH);
-			addWithListener(consumers, cap);
+		for (Direction d : DIRECTIONS) {
+			if (sideModes[d.getIndex()].items)
+				itemConnections.rescan(d);
+			else
+				itemConnections.clear(d);
 		}
 		gazcreations.borkler.Borkler.LOGGER
-				.debug("Borkler @" + world + " ," + pos + "has updated its item connections: " + consumers.toString());
-		this.itemConnections = consumers;
+				.debug("Borkler @" + world + " ," + pos + "has updated its item connections: " + itemConnections);
 	}
 
 	/**
-	 * This method runs a check on all sides of this TileEntity and populates this
-	 * {@link BorklerTileEntity#fluidConnections} with a HashSet containing up to 6
-	 * {@link IFluidHandler} instances. <br>
-	 * The populated set is guaranteed not to be null and not to contain any null
-	 * elements.
-	 * 
+	 * This method runs a check on all sides of this TileEntity and keeps track of
+	 * up to 6 {@link IFluidHandler} instances in
+	 * {@link BorklerTileEntity#fluidConnections}, one per side. <br>
+	 * Neighbors that were already known are left alone, so this can be called as
+	 * often as needed.
 	 */
 	public void updateFluidConnections() {
 		if (world.isRemote)
 			return;
-		Set<LazyOptional<IFluidHandler>> consumers = new ObjectArraySet<LazyOptional<IFluidHandler>>(7) {
-			private static final long serialVersionUID = 1L;
-
-			public boolean add(LazyOptional<IFluidHandler> element) {
-				if (element == null || !element.isPresent())
-					return false;
-				return super.add(element);
-			}
-		};
 		gazcreations.borkler.Borkler.LOGGER
 				.debug("Borkler @" + world + " ," + pos + " has been politely asked to update its fluid connections.");
-		gazcreations.borkler.Borkler.LOGGER.debug("Current connections are: " + this.fluidConnections.toString());
-		LazyOptional<IFluidHandler> cap = null;
-		TileEntity te = null;
-		for (Direction d : Direction.values()) {
-			if ((te = this.world.getTileEntity(getPos().offset(d))) != null) {
-				cap = te.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, d.getOpposite());
-				addWithListener(consumers, cap);
-			}
+		gazcreations.borkler.Borkler.LOGGER.debug("Current connections are: " + this.fluidConnections);
+		for (Direction d : DIRECTIONS) {
+			if (sideModes[d.getIndex()].hasFluids())
+				fluidConnections.rescan(d);
+			else
+				fluidConnections.clear(d);
+			if (sideModes[d.getIndex()].push)
+				steamReceivers.rescan(d);
+			else
+				steamReceivers.clear(d);
 		}
+		intake.reset(); // new neighbors, maybe. Ask them all again
 		gazcreations.borkler.Borkler.LOGGER
-				.debug("Borkler @" + world + " ," + pos + "has updated its connections: " + consumers.toString());
-		this.fluidConnections = consumers;
+				.debug("Borkler @" + world + " ," + pos + "has updated its connections: " + fluidConnections);
 	}
 
 	/**
-	 * This function will scour the connected {@link IFluidHandler}s to see which
-	 * ones can accept steam, and appropriately adjust the steam output.<br>
-	 * The Boiler will attempt to evenly distribute its steam to all consumers.
+	 * This function will hand this boiler's steam out to the connected
+	 * {@link IFluidHandler}s, in a single pass.<br>
+	 * The Boiler will attempt to evenly distribute its steam to all consumers:
+	 * each one is offered its fair share of whatever's left, so steam one of them
+	 * won't take goes to the ones after it. The first consumer in line changes
+	 * every time, so nobody always gets the leftovers, and consumers that were
+	 * full are left alone for a few turns.
+	 * 
+	 * @return true if any steam was sent out.
 	 */
-	private void distributeSteam() {
-		Set<LazyOptional<IFluidHandler>> consumers = new ObjectArraySet<>(7);
-		for (LazyOptional<IFluidHandler> dest : fluidConnections) {
-			if (dest.isPresent()) {
-				IFluidHandler handler = dest.orElse(null);
-				if (handler != null) {
-					int amount = handler.fill(steam, FluidAction.SIMULATE);
-					if (amount > 0) {
-						// oh look, we can output steam!
-						addWithListener(consumers, dest);
-					}
-				}
-			}
+	private boolean distributeSteam() {
+		int remaining = tanks.steam[slot];
+		if (remaining <= 0)
+			return false; // nothing to give
+		int consumers = 0;
+		for (int d = 0; d < 6; d++) {
+			if ((fluidConnections.get(d) == null && steamReceivers.get(d) == null) || !sideModes[d].push)
+				fullFor[d] = 0;
+			else if (fullFor[d] > 0)
+				fullFor[d]--; // still full, probably
+			else
+				consumers++;
 		}
-		if (consumers.size() < 1)
-			return; // nobody to send steam to =(
-		int amount = this.steam.getAmount() / consumers.size();
-		for (LazyOptional<IFluidHandler> dest : consumers) {
-			if (dest.isPresent()) {
-				pushSteam(dest.orElse(null), amount);
+		if (consumers < 1)
+			return false; // nobody to send steam to =(
+		int first = steamCursor;
+		steamCursor = (steamCursor + 1) % 6;
+		for (int k = 0; k < 6 && remaining > 0 && consumers > 0; k++) {
+			int d = (first + k) % 6;
+			ISteamReceiver receiver = steamReceivers.get(d);
+			IFluidHandler handler = fluidConnections.get(d);
+			if ((receiver == null && handler == null) || fullFor[d] > 0 || !sideModes[d].push)
+				continue;
+			int share = (remaining + consumers - 1) / consumers--;
+			int sent;
+			if (receiver != null) {
+				sent = receiver.receiveSteam(share); // the fast way
+			} else {
+				steamStack.setAmount(share);
+				sent = handler.fill(steamStack, FluidAction.EXECUTE);
 			}
+			if (sent <= 0)
+				fullFor[d] = FULL_BACKOFF;
+			else
+				intake.consumed(d);
+			remaining -= Math.min(sent, share);
 		}
-	}
-
-	/**
-	 * This method will attempt to output steam to a connected IFluidHandler.
-	 * 
-	 * @param destination
-	 * @param steamAmount
-	 */
-	private void pushSteam(IFluidHandler destination, int steamAmount) {
-		if (destination == null) // just checking
-			return;
-		int amount = destination.fill(new FluidStack(steam.getFluid(), steamAmount), FluidAction.SIMULATE);
-		if (amount > 0) {
-			// oh look, we can output steam!
-			destination.fill(drain(Math.min(steamAmount, amount), FluidAction.EXECUTE), FluidAction.EXECUTE);
-			// this.drain will invoke markDirty(), so we're good
-		}
-
+		int sent = tanks.steam[slot] - remaining;
+		if (sent <= 0)
+			return false;
+		tanks.steam[slot] = remaining;
+		markDirty();
+		return true;
 	}
 
 	/**
 	 * Will attempt to pull a compatible fluid (i.e. water or fuel) from a connected
-	 * {@link IFluidHandler}.
+	 * {@link IFluidHandler}. Lets the {@link IntakePlanner} know how it went.
 	 * 
+	 * @param side   the side the source is on
 	 * @param source
+	 * @param ask    what to ask it for, as {@link IntakePlanner#WATER} and
+	 *               {@link IntakePlanner#FUEL} bits
+	 * @return true if anything was pulled.
 	 */
-	public void pullFluid(IFluidHandler source) {
-		if (!BorklerConfig.CONFIG.THIRSTY.get())
-			return;
-		// a hard check for fluid validity
-		boolean isValidSource = false;
-		for (int i = 0; i < source.getTanks(); i++) {
-			Fluid fluid = source.getFluidInTank(i).getFluid();
-			if (fluid == Fluids.EMPTY)
-				isValidSource = true; // in order for this to work with pipes, which drain on-demand, EMPTY has to be
-										// a valid fluid
-			byte tank = getTankForFluid(fluid);
-			if (tank >= 0 && tank != 2)
-				isValidSource = true;
-		}
-		if (!isValidSource)
-			return;
+	private boolean pullFluid(int side, IFluidHandler source, byte ask) {
+		byte pulled = 0;
 		// try to pull water
-		FluidStack toDrain = new FluidStack(Fluids.WATER, getTankCapacity(0) - water.getAmount());
-		FluidStack drained = source.drain(toDrain, FluidAction.SIMULATE);
-		if (drained.getFluid().isEquivalentTo(Fluids.WATER) && drained.getAmount() > 0) {
-			if (water.isEmpty())
-				water = new FluidStack(Fluids.WATER, 0);
-			water.grow(source.drain(toDrain, FluidAction.EXECUTE).getAmount());
-			markDirty();
-			// water has been pulled!
+		int room = BoilerTanks.WATER_CAPACITY - tanks.water[slot];
+		if ((ask & IntakePlanner.WATER) != 0) {
+			waterStack.setAmount(room);
+			int drained = drainExactly(source, waterStack);
+			if (drained > 0) {
+				tanks.water[slot] += drained;
+				pulled |= IntakePlanner.WATER;
+				// water has been pulled!
+			}
 		}
 		// try to pull fuel
-		if (!fuel.isEmpty()) {
-			toDrain = new FluidStack(fuel.getFluid(), getTankCapacity(1) - fuel.getAmount());
-			drained = source.drain(toDrain, FluidAction.SIMULATE);
-			// extra check just in case
-			if (!fuel.isFluidEqual(drained)) // the incoming fluid must be the same as the current fuel
-				return;
-			if (drained.getAmount() > 0) {
-				fuel.grow(source.drain(toDrain, FluidAction.EXECUTE).getAmount());
-				markDirty();
-				// fuel has been pulled!
+		room = BoilerTanks.FUEL_CAPACITY - tanks.fuel[slot];
+		if ((ask & IntakePlanner.FUEL) != 0) {
+			if (tanks.fuel[slot] > 0) {
+				// the incoming fluid must be the same as the current fuel
+				if (fuelStack == null || fuelStack.getFluid() != tanks.fuelType[slot])
+					fuelStack = new FluidStack(tanks.fuelType[slot], room);
+				fuelStack.setAmount(room);
+				int drained = drainExactly(source, fuelStack);
+				if (drained > 0) {
+					tanks.fuel[slot] += drained;
+					pulled |= IntakePlanner.FUEL;
+					// fuel has been pulled!
+				}
+			} else {
+				// first we simulate filling the entire tank with fuel
+				FluidStack toDrain = source.drain(room, FluidAction.SIMULATE);
+				// whatever this is, it might not be fuel
+				if (!toDrain.isEmpty() && isFluidValid(1, toDrain)) {
+					toDrain.setAmount(Math.min(room, toDrain.getAmount()));
+					int drained = drainExactly(source, toDrain);
+					if (drained > 0) {
+						tanks.fuelType[slot] = toDrain.getFluid();
+						tanks.fuel[slot] = drained;
+						pulled |= IntakePlanner.FUEL;
+						// fuel has been pulled!
+					}
+				}
 			}
 		}
-		if (fuel.isEmpty()) {
-			// first we simulate filling the entire tank with fuel
-			toDrain = source.drain(getTankCapacity(1), FluidAction.SIMULATE);
-			if (!isFluidValid(1, toDrain)) {
-				// whatever this is, it's not fuel
-				return;
-			}
-			if (toDrain.getAmount() > 0) {
-				fuel = new FluidStack(toDrain.getFluid(), 0);
-				fuel.grow(source.drain(toDrain, FluidAction.EXECUTE).getAmount());
-				markDirty();
-				// fuel has been pulled!
-			}
+		intake.answered(side, ask, pulled);
+		if (pulled == 0)
+			return false;
+		markDirty();
+		return true;
+	}
+
+	/**
+	 * Drains a specific fluid out of a neighbor, and makes sure that's what came
+	 * out. Not every handler cares what it's asked for (another boiler hands out
+	 * steam, whatever you ask it for), so it's asked first and only drained if
+	 * the answer is right. Anything wrong that comes out anyway is put back.
+	 * 
+	 * @param wanted what to drain. Its amount may be lowered to what's on offer.
+	 * @return how much of it was drained, no more than wanted.
+	 */
+	private static int drainExactly(IFluidHandler source, FluidStack wanted) {
+		FluidStack offered = source.drain(wanted, FluidAction.SIMULATE);
+		if (offered.isEmpty() || !offered.isFluidEqual(wanted))
+			return 0;
+		wanted.setAmount(Math.min(wanted.getAmount(), offered.getAmount()));
+		FluidStack drained = source.drain(wanted, FluidAction.EXECUTE);
+		if (drained.isEmpty())
+			return 0;
+		if (!drained.isFluidEqual(wanted) || drained.getAmount() > wanted.getAmount()) {
+			// it lied. Give it all back, rather than making or losing fluid
+			source.fill(drained, FluidAction.EXECUTE);
+			return 0;
 		}
+		return drained.getAmount();
 	}
 
 	/**
@@ -856,19 +1413,73 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 */
 	@Override
 	public FluidStack drain(int maxDrain, FluidAction action) {
-		int drained = maxDrain;
 		// Okay. Since we're talking about a steam boiler, it only makes sense
 		// that whatever we drain here is steam, right?
 		// guys?
-		if (steam.getAmount() < drained) {
-			drained = steam.getAmount();
+		if (isOffThread()) {
+			int drained = credits.takeSteam(maxDrain, action.execute());
+			if (drained <= 0)
+				return FluidStack.EMPTY;
+			if (action.execute())
+				queueOffThread();
+			return new FluidStack(Index.Fluids.STEAMSOURCE, drained);
 		}
-		FluidStack stack = new FluidStack(steam, drained);
-		if (action.execute() && drained > 0) {
-			steam.shrink(drained);
+		settle();
+		if (action.execute())
+			reclaimCredits();
+		else
+			publishCredits(); // so a simulation sees what other threads drained
+		int drained = Math.min(maxDrain, tanks.steam[slot]);
+		if (drained <= 0)
+			return FluidStack.EMPTY;
+		if (action.execute()) {
+			tanks.steam[slot] -= drained;
+			publishCredits();
 			markDirty();
+			reschedule(); // there's room for more steam now
 		}
-		return stack;
+		return new FluidStack(Index.Fluids.STEAMSOURCE, drained);
+	}
+
+	/**
+	 * Takes out steam this boiler has sent out by itself, while exchanging with
+	 * its neighbors (see {@link MekaBorkler#autoOutputGas()}). Unlike
+	 * {@link BorklerTileEntity#extractSteam(int)}, this leaves the
+	 * {@link TankCredits} alone: they're closed for the whole exchange, and only
+	 * go back out once the tanks are final.
+	 */
+	public void steamSentOut(int amount) {
+		int sent = Math.min(amount, tanks.steam[slot]);
+		if (sent <= 0)
+			return;
+		tanks.steam[slot] -= sent;
+		markDirty();
+	}
+
+	/**
+	 * Same as {@link BorklerTileEntity#drain(int, FluidAction)} with
+	 * {@link FluidAction#EXECUTE}, minus the FluidStack. See
+	 * {@link ISteamProvider}. Not for the boiler's own exchange: see
+	 * {@link BorklerTileEntity#steamSentOut(int)}.
+	 */
+	@Override
+	public int extractSteam(int maxAmount) {
+		if (isOffThread()) {
+			int drained = credits.takeSteam(maxAmount, true);
+			if (drained > 0)
+				queueOffThread();
+			return drained;
+		}
+		settle();
+		reclaimCredits();
+		int drained = Math.min(maxAmount, tanks.steam[slot]);
+		if (drained <= 0)
+			return 0;
+		tanks.steam[slot] -= drained;
+		publishCredits();
+		markDirty();
+		reschedule(); // there's room for more steam now
+		return drained;
 	}
 
 	@Override
@@ -881,6 +1492,7 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 */
 	@Override
 	public Container createMenu(int id, PlayerInventory playerInv, PlayerEntity player) {
+		wake(); // the player will want to see something happening
 		BorklerContainer menu = new BorklerContainer(id, playerInv, this.solidFuel, getPos());
 		return menu;
 	}
@@ -927,8 +1539,10 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	@Override
 	public ItemStack removeStackFromSlot(int arg0) {
 		ItemStack stonks = solidFuel.removeStackFromSlot(0);
-		if (!stonks.isEmpty())
+		if (!stonks.isEmpty()) {
+			refreshSolidFuel();
 			markDirty();
+		}
 		return stonks;
 	}
 
@@ -940,6 +1554,7 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 		if (isItemValid(0, arg1)) {
 			this.solidFuel.setInventorySlotContents(0, arg1);
 			markDirty();
+			wake();
 		}
 	}
 
@@ -949,126 +1564,114 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	@Override
 	public void clear() {
 		solidFuel.clear();
+		refreshSolidFuel();
 		markDirty();
 	}
 
+	/**
+	 * What players watching this chunk get when it's sent to them: where the
+	 * boiler is, and a {@link BorklerSnapshot} of what's in it, as bytes. Changes
+	 * after that only go to those with the GUI open; see
+	 * {@link BorklerTileEntity#collectUpdate(BorklerChunkUpdate)}.
+	 */
 	@Override
-	public void onDataPacket(NetworkManager man, SUpdateTileEntityPacket s) {
-		super.onDataPacket(man, s);
-		if (world.isRemote) { // just checking we're clientside
-			this.readCustomData(s.getNbtCompound());
-		}
+	public CompoundNBT getUpdateTag() {
+		CompoundNBT tag = new CompoundNBT();
+		tag.putString("id", Index.BORKLER_TE_TYPE.getRegistryName().toString());
+		tag.putInt("x", pos.getX());
+		tag.putInt("y", pos.getY());
+		tag.putInt("z", pos.getZ());
+		snapshot(current);
+		tag.putByteArray("sync", current.toBytes());
+		return tag;
 	}
 
+	/**
+	 * Reads the snapshot in the update tag. See
+	 * {@link BorklerTileEntity#getUpdateTag()}.
+	 */
 	@Override
-	public SUpdateTileEntityPacket getUpdatePacket() {
-		return new SUpdateTileEntityPacket(pos, 0, writeCustomData());
+	public void handleUpdateTag(BlockState state, CompoundNBT tag) {
+		BorklerSnapshot snapshot = new BorklerSnapshot();
+		snapshot.fromBytes(tag.getByteArray("sync"));
+		tanks.water[slot] = snapshot.water;
+		tanks.fuel[slot] = snapshot.fuel;
+		tanks.fuelType[slot] = snapshot.fuel > 0 ? snapshot.fuelType : Fluids.EMPTY;
+		tanks.steam[slot] = snapshot.steam;
+		solidFuel.setInventorySlotContents(0, new ItemStack(snapshot.solidFuelType, snapshot.solidFuelCount));
 	}
 
 	/**
 	 * The clock is ticking.
 	 * <p>
-	 * So, this is where the magic happens. Every tick, the boiler will attempt to
-	 * do its job, turning water into steam. This is possible if the boiler is
-	 * currently powered and active.
+	 * This is the first part of a boiler's tick, and the one that needs the world:
+	 * if this boiler is set to auto-input fluids, it will try to do so, and then it
+	 * will send its steam out to whoever wants it. The boiling itself is done by
+	 * the {@link BoilerManager}, for every boiler at once.
+	 * 
+	 * @return true if any fluid moved.
 	 */
-	@Override
-	public void tick() {
-		if (world.isRemote()) // server side only.
-			return;
-		// first things first: if this boiler is set to auto-input fluids, it will try
-		// to do so before anything else.
+	boolean exchange() {
+		// taking stuff in and sending steam out has to come out of what other
+		// threads haven't already claimed. Credit goes back out at commit
+		boolean progressed = reclaimCredits();
 		if (BorklerConfig.CONFIG.THIRSTY.get()) {
 			// will check its connections for a water supply
-			for (LazyOptional<IFluidHandler> supplier : fluidConnections) {
-				if (supplier.isPresent()) {
-					// found a supplier!
-					IFluidHandler f = supplier.orElse(null);
-					if (f != null)
-						pullFluid(f);
-				}
+			// will only bother its neighbors if it's running low on something
+			for (int d = 0; d < 6; d++) {
+				SideMode mode = sideModes[d];
+				if (!mode.water && !mode.fuel)
+					continue; // nothing comes in this way
+				IFluidHandler f = fluidConnections.get(d);
+				if (f == null)
+					continue;
+				byte ask = intake.toAsk(d, mode, IntakePlanner.isLow(tanks.water[slot], BoilerTanks.WATER_CAPACITY),
+						IntakePlanner.isLow(tanks.fuel[slot], BoilerTanks.FUEL_CAPACITY));
+				if (ask != 0) // found a supplier!
+					progressed |= pullFluid(d, f, ask);
 			}
 		}
-		distributeSteam();
-		mainMethod: {
-			// the boiler will refuse to operate if it has no water.
-			if (water.isEmpty()) {
-				setActive(false);
-				break mainMethod;
-			}
-			if (steam.getAmount() == getTankCapacity(2)) {
-				// the boiler will refuse to operate if its steam tank is full.
-				setActive(false);
-				break mainMethod;
+		if (isHungry())
+			progressed |= pullSolidFuel();
+		progressed |= distributeSteam();
+		if (gasHandler != null)
+			progressed |= gasHandler.autoOutputGas();
+		return progressed;
+	}
 
-			}
-			if (burnTime > 0) {
-				// so, we have water, the boiler is active, and the steam tank is not full. It's
-				// boiling time, boyos.
-				setActive(true);
-				boil();
+	/**
+	 * The last part of a boiler's tick, after the {@link BoilerManager} has done
+	 * the boiling: updates the block state, takes lit fuel out of the inventory
+	 * and, if nothing at all happened during this tick, goes to sleep.
+	 * 
+	 * @param active       whether the boiler should now be active
+	 * @param consumeSolid how many solid fuel items have been lit
+	 * @param progressed   whether anything happened at all
+	 */
+	void commit(boolean active, int consumeSolid, boolean progressed) {
+		if (consumeSolid > 0)
+			consumeSolidFuel(consumeSolid);
+		setActive(active);
+		progressed |= publishCredits();
+		if (progressed)
+			markDirty();
+		else
+			BoilerManager.get(world).sleep(this); // might as well nap
+	}
 
-			} else {
-				burnTime = 0; // just in case
-				// OK, so we're not currently burning fuel. Is there anything to burn, though?
-				if (solidFuel.isEmpty() && fuel.isEmpty()) {
-					// there's no liquid or solid fuel present. Boiler will be turned off.
-					setActive(false);
-					break mainMethod;
-				}
-				if (!solidFuel.isEmpty()) {
-					// there's solid fuel in the burner. Let's try to burn this.
-					// int additionalBurnTime = ForgeHooks.getBurnTime(getStackInSlot(0));
-					int additionalBurnTime = nerfdBurnTime(getStackInSlot(0));
-					if (additionalBurnTime > 0) {
-						// burnTime += ForgeHooks.getBurnTime(decrStackSize(0, 1));
-						burnTime += nerfdBurnTime(decrStackSize(0, 1));
-						setActive(true);
-						break mainMethod;
-					}
-				}
-				if (!fuel.isEmpty()) {
-					// ok, there is liquid fuel in the boiler. We'll try to burn this.
-					int bitOFuel = Math.min(fuel.getAmount(), 5);
-					// int addBurnTime = validFuels.getInt(fuel.getFluid()) * bitOFuel;
-					int addBurnTime = BorklerFuel.getBurnTime(fuel.getFluid(), world) * bitOFuel;
-					fuel.shrink(bitOFuel);
-					burnTime += addBurnTime;
-					setActive(true);
-					break mainMethod;
-					/*
-					 * if (fuel.getFluid().isIn(FluidTags.LAVA)) { // Determining burn time for lava
-					 * is tricky. Let's use the lava bucket, or 1000 // mB, as reference. int
-					 * bitOFuel = Math.min(fuel.getAmount(), 5); int additionalBurnTime = bitOFuel *
-					 * 20; fuel.shrink(bitOFuel); burnTime += additionalBurnTime; setActive(true);
-					 * break mainMethod; } if
-					 * (fuel.getFluid().isIn(net.minecraftforge.common.Tags.Fluids.MILK)) {
-					 * 
-					 * }
-					 */
-				}
-			}
-		} // mainMethod label ends here. Now we run our dirtyness check.
-		ticksSinceLastClientUpdate++;
-	}
-
-	/**
-	 * This function tries to drain a configurable amount of water from the water
-	 * tank and add a corresponding amount of Steam, corrected by the
-	 * 'conversion_rate' config setting, to the output tank. It is run on every tick
-	 * while the boiler is active, and decreases burnTime by one tick. <br>
-	 * If less than that configurable amount of water is present, it will boil
-	 * whatever's left. <br>
-	 * Any excess steam is discarded.
-	 */
-	private final void boil() {
-		int amount = Math.min(this.water.getAmount(), BorklerConfig.CONFIG.WATER_USE.get());
-		this.water.shrink(amount);
-		this.steam.grow(Math.toIntExact(Math.round(amount * BorklerConfig.CONFIG.CONVERSION_RATE.get())));
-		if (steam.getAmount() > getTankCapacity(2))
-			steam.setAmount(getTankCapacity(2));
-		burnTime--;
-		markDirty();
+	/**
+	 * @return the game time up to which this boiler's tanks are up to date. A
+	 *         boiler that's dormant is always up to date, since it wouldn't have
+	 *         been doing anything anyway.
+	 */
+	private long lastUpToDate() {
+		if (world != null && !world.isRemote()
+				&& (tanks.flags[slot] & (BoilerTanks.AWAKE | BoilerTanks.SCHEDULED)) == 0) {
+			BoilerManager manager = BoilerManager.getIfPresent(world);
+			if (manager != null && manager.tanks == tanks)
+				return world.getGameTime();
+		}
+		return tanks.since[slot];
 	}
 
 	/**
@@ -1076,16 +1679,24 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	 * from {@link TileEntity#getTileData()}.
 	 */
 	private CompoundNBT writeCustomData() {
+		settle();
 		CompoundNBT stuff = getTileData();
 		stuff.putByte("tier", tier);
-		stuff.putInt("steam", this.steam.getAmount());
-		stuff.putInt("water", this.water.getAmount());
-		stuff.putString("fuelType", fuel.getFluid().getRegistryName().toString());
-		stuff.putInt("fuelAmount", this.fuel.getAmount());
+		stuff.putInt("steam", tanks.steam[slot]);
+		stuff.putInt("water", tanks.water[slot]);
+		stuff.putString("fuelType", tanks.fuelType[slot].getRegistryName().toString());
+		stuff.putInt("fuelAmount", tanks.fuel[slot]);
 		stuff.putString("solidFuelType", this.solidFuel.getStackInSlot(0).getItem().getRegistryName().toString());
 		stuff.putInt("solidFuelAmount", this.solidFuel.getStackInSlot(0).getCount());
-		stuff.putBoolean("isActive", isActive);
-		stuff.putInt("burnTime", this.burnTime);
+		stuff.putString("fuelReserveType", fuelReserve.getItem().getRegistryName().toString());
+		stuff.putInt("fuelReserveAmount", fuelReserve.getCount());
+		stuff.putBoolean("isActive", isActive());
+		stuff.putInt("burnTime", tanks.burnTime[slot]);
+		stuff.putLong("lastGameTime", lastUpToDate());
+		byte[] modes = new byte[6];
+		for (int d = 0; d < 6; d++)
+			modes[d] = (byte) sideModes[d].ordinal();
+		stuff.putByteArray("sideModes", modes);
 		return stuff;
 	}
 
@@ -1095,17 +1706,28 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 			return;
 		}
 		tier = nbt.getByte("tier");
-		steam = new FluidStack(Index.Fluids.STEAMSOURCE, nbt.getInt("steam"));
-		water = new FluidStack(Fluids.WATER, nbt.getInt("water"));
-		fuel = new FluidStack(ForgeRegistries.FLUIDS.getValue(new ResourceLocation(nbt.getString("fuelType"))),
-				nbt.getInt("fuelAmount"));
+		tanks.steam[slot] = nbt.getInt("steam");
+		tanks.water[slot] = nbt.getInt("water");
+		Fluid fuelType = ForgeRegistries.FLUIDS.getValue(new ResourceLocation(nbt.getString("fuelType")));
+		tanks.fuel[slot] = fuelType == null || fuelType == Fluids.EMPTY ? 0 : nbt.getInt("fuelAmount");
+		tanks.fuelType[slot] = tanks.fuel[slot] > 0 ? fuelType : Fluids.EMPTY;
+		// the reserve goes first, so the fuel slot counts it in
+		fuelReserve = !nbt.contains("fuelReserveType") ? ItemStack.EMPTY
+				: new ItemStack(
+						() -> ForgeRegistries.ITEMS.getValue(new ResourceLocation(nbt.getString("fuelReserveType"))),
+						nbt.getInt("fuelReserveAmount"));
 		solidFuel.setInventorySlotContents(0,
 				new ItemStack(
 						() -> ForgeRegistries.ITEMS.getValue(new ResourceLocation(nbt.getString("solidFuelType"))),
 						nbt.getInt("solidFuelAmount")));
 		boolean act = nbt.getBoolean("isActive");
 		setActive(act);
-		burnTime = nbt.getInt("burnTime");
+		tanks.burnTime[slot] = nbt.getInt("burnTime");
+		// the BoilerManager will take care of the time it's spent unloaded
+		tanks.since[slot] = nbt.getLong("lastGameTime");
+		byte[] modes = nbt.getByteArray("sideModes");
+		for (int d = 0; d < 6; d++)
+			sideModes[d] = d < modes.length ? SideMode.byOrdinal(modes[d]) : SideMode.AUTO;
 	}
 
 	/**
@@ -1125,21 +1747,43 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	public void read(BlockState state, CompoundNBT nbtTag) {
 		super.read(state, nbtTag);
 		readCustomData(nbtTag.getCompound("ForgeData"));
-		if (this.world != null)
-			updateFluidConnections();
-		// updateItemConnections();
+		requestRescan();
 	}
 
 	@Override
 	public void onLoad() {
 		super.onLoad();
 		if (world != null && !world.isRemote()) {
-			addFutureServerTask(world, () -> updateFluidConnections(), true);
-			addFutureServerTask(world, () -> updateItemConnections(), true);
+			serverThread = Thread.currentThread();
+			requestRescan();
+			BoilerManager.get(world).add(this);
+			publishCredits();
 			addFutureServerTask(world, () -> this.updateContainingBlockInfo(), true);
 		}
 	}
 
+	/**
+	 * Lets the {@link BoilerManager} know it should stop ticking this boiler.
+	 */
+	@Override
+	public void remove() {
+		super.remove();
+		reclaimCredits();
+		BoilerManager manager = world == null || world.isRemote() ? null : BoilerManager.getIfPresent(world);
+		if (manager != null)
+			manager.remove(this);
+	}
+
+	@Override
+	public void onChunkUnloaded() {
+		super.onChunkUnloaded();
+		clearConnections();
+		reclaimCredits();
+		BoilerManager manager = world == null || world.isRemote() ? null : BoilerManager.getIfPresent(world);
+		if (manager != null)
+			manager.remove(this);
+	}
+
 	/**
 	 * This function was copied from the IE code because running
 	 * updateFluidConnections in onLoad would cause Minecraft to hang indefinitely.
@@ -1171,35 +1815,130 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 	public <T> LazyOptional<T> getCapability(Capability<T> cap, @javax.annotation.Nullable Direction side) {
 		if (this.isRemoved())
 			return LazyOptional.empty();
+		SideMode mode = side == null ? SideMode.AUTO : sideModes[side.getIndex()];
 		if (cap == CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY) {
+			if (!mode.hasFluids())
+				return LazyOptional.empty();
+			if (mode != SideMode.AUTO) {
+				// a face that only does some things gets a handler that only does those
+				int d = side.getIndex();
+				if (sideFluidCapabilities[d] == null || !sideFluidCapabilities[d].isPresent()) {
+					SideFluidHandler handler = new SideFluidHandler(mode);
+					sideFluidCapabilities[d] = LazyOptional.of(() -> handler);
+				}
+				return sideFluidCapabilities[d].cast();
+			}
 			if (fluidHandlerCapability == null || !fluidHandlerCapability.isPresent()) {
 				fluidHandlerCapability = LazyOptional.of(() -> this);
 			}
 			return fluidHandlerCapability.cast();
 		}
+		if (cap == SteamCapabilities.STEAM_PROVIDER) {
+			if (!mode.pull)
+				return LazyOptional.empty();
+			if (steamProviderCapability == null || !steamProviderCapability.isPresent()) {
+				steamProviderCapability = LazyOptional.of(() -> this);
+			}
+			return steamProviderCapability.cast();
+		}
 		if (cap == CapabilityItemHandler.ITEM_HANDLER_CAPABILITY) {
+			if (!mode.items)
+				return LazyOptional.empty();
 			if (itemHandlerCapability == null || !itemHandlerCapability.isPresent()) {
 				itemHandlerCapability = LazyOptional.of(() -> this);
 			}
 			return itemHandlerCapability.cast();
 		}
-		try {
-			if (cap == MekaBorkler.GasHandlerCapability) {
-				gazcreations.borkler.Borkler.LOGGER.debug("something is checking borkler for gases");
-				if (gasHandlerWrapper == null || !gasHandlerWrapper.isPresent()) {
-					gasHandlerWrapper = LazyOptional.of(() -> new MekaBorkler(this));
-				}
-				return gasHandlerWrapper.cast();
+		if (MekanismCompat.isGasHandler(cap)) {
+			if (!mode.pull)
+				return LazyOptional.empty();
+			if (gasHandlerWrapper == null || !gasHandlerWrapper.isPresent()) {
+				MekaBorkler handler = getGasHandler();
+				gasHandlerWrapper = LazyOptional.of(() -> handler);
 			}
-		} catch (Throwable t) {
-			gazcreations.borkler.Borkler.LOGGER.debug(t); // TODO remove this
+			return gasHandlerWrapper.cast();
 		}
 		return LazyOptional.empty();
 	}
 
+	/**
+	 * @return what a given face of this boiler is allowed to do.
+	 */
+	public SideMode getSideMode(Direction side) {
+		return sideModes[side.getIndex()];
+	}
+
+	/**
+	 * Switches a face of this boiler to the next {@link SideMode} in line. Its
+	 * neighbor on that side will have to ask for its capabilities again.
+	 * 
+	 * @return the new mode.
+	 */
+	public SideMode cycleSideMode(Direction side) {
+		int d = side.getIndex();
+		sideModes[d] = sideModes[d].next();
+		intake.reset(d); // whatever was learned about this side was for the old mode
+		hunger.reset(d);
+		invalidateSide(d);
+		if (itemHandlerCapability != null && !sideModes[d].items) {
+			// can't invalidate only one side's worth of a shared capability, so everyone
+			// asks again
+			itemHandlerCapability.invalidate();
+			itemHandlerCapability = null;
+		}
+		if (fluidHandlerCapability != null && sideModes[d] != SideMode.AUTO) {
+			fluidHandlerCapability.invalidate();
+			fluidHandlerCapability = null;
+		}
+		if (steamProviderCapability != null && !sideModes[d].pull) {
+			steamProviderCapability.invalidate();
+			steamProviderCapability = null;
+		}
+		if (gasHandlerWrapper != null && !sideModes[d].pull) {
+			gasHandlerWrapper.invalidate();
+			gasHandlerWrapper = null;
+		}
+		requestRescan();
+		markDirty();
+		wake();
+		return sideModes[d];
+	}
+
+	/**
+	 * Invalidates the side-specific fluid handler of a face, if there's one.
+	 */
+	private void invalidateSide(int d) {
+		if (sideFluidCapabilities[d] != null) {
+			sideFluidCapabilities[d].invalidate();
+			sideFluidCapabilities[d] = null;
+		}
+	}
+
+	/**
+	 * Lets go of every neighbor this boiler knows about.
+	 */
+	private void clearConnections() {
+		fluidConnections.clear();
+		itemConnections.clear();
+		steamReceivers.clear();
+		if (gasHandler != null)
+			gasHandler.clearConnections();
+	}
+
+	/**
+	 * @return this boiler's {@link MekaBorkler}, built the first time it's needed,
+	 *         or null if Mekanism isn't loaded.
+	 */
+	private MekaBorkler getGasHandler() {
+		if (gasHandler == null && MekanismCompat.isLoaded())
+			gasHandler = new MekaBorkler(this);
+		return gasHandler;
+	}
+
 	/**
 	 * Invalidates this entity's {@link BorklerTileEntity#fluidHandlerCapability}
-	 * and {@link BorklerTileEntity#itemHandlerCapability}.
+	 * and {@link BorklerTileEntity#itemHandlerCapability}, and forgets about its
+	 * neighbors.
 	 */
 	@Override
 	public void invalidateCaps() {
@@ -1209,9 +1948,15 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 		if (itemHandlerCapability != null) {
 			itemHandlerCapability.invalidate();
 		}
+		if (steamProviderCapability != null) {
+			steamProviderCapability.invalidate();
+		}
+		for (int d = 0; d < 6; d++)
+			invalidateSide(d);
 		if (gasHandlerWrapper != null) {
 			gasHandlerWrapper.invalidate();
 		}
+		clearConnections();
 		super.invalidateCaps();
 	}
 
@@ -1220,4 +1965,61 @@ public class BorklerTileEntity extends LockableTileEntity implements ITickableTi
 		return this.createMenu(id, player, player.player);
 	}
 
+	/**
+	 * What a neighbor gets when it asks a face that isn't {@link SideMode#AUTO}
+	 * for fluids. Does everything the boiler does, as long as that face is
+	 * allowed to do it.
+	 * 
+	 * @author gazotti
+	 *
+	 */
+	private class SideFluidHandler implements IFluidHandler {
+
+		private final SideMode mode;
+
+		private SideFluidHandler(SideMode mode) {
+			this.mode = mode;
+		}
+
+		@Override
+		public int getTanks() {
+			return BorklerTileEntity.this.getTanks();
+		}
+
+		@Override
+		public FluidStack getFluidInTank(int tank) {
+			return BorklerTileEntity.this.getFluidInTank(tank);
+		}
+
+		@Override
+		public int getTankCapacity(int tank) {
+			return BorklerTileEntity.this.getTankCapacity(tank);
+		}
+
+		@Override
+		public boolean isFluidValid(int tank, FluidStack stack) {
+			return BorklerTileEntity.this.isFluidValid(tank, stack);
+		}
+
+		@Override
+		public int fill(FluidStack resource, FluidAction action) {
+			if (resource == null || resource.isEmpty())
+				return 0;
+			byte tank = getTankForFluid(resource.getFluid());
+			if ((tank == TankClassifier.WATER && mode.water) || (tank == TankClassifier.FUEL && mode.fuel))
+				return BorklerTileEntity.this.fill(resource, action);
+			return 0;
+		}
+
+		@Override
+		public FluidStack drain(FluidStack resource, FluidAction action) {
+			return mode.pull ? BorklerTileEntity.this.drain(resource, action) : FluidStack.EMPTY;
+		}
+
+		@Override
+		public FluidStack drain(int maxDrain, FluidAction action) {
+			return mode.pull ? BorklerTileEntity.this.drain(maxDrain, action) : FluidStack.EMPTY;
+		}
+	}
+
 }
@@ -0,0 +1,218 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package gazcreations.borkler.blocks;
+
+import java.lang.ref.WeakReference;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.common.util.NonNullConsumer;
+
+/**
+ * Keeps track of a boiler's neighbors that provide a given {@link Capability}:
+ * one resolved handler per {@link Direction}, at most.
+ * <p>
+ * Every neighbor capability gets exactly one invalidation listener, no matter
+ * how many times the boiler rescans its surroundings, or forgets and finds it
+ * again: a listener can't be taken back, so the registry remembers which
+ * {@link LazyOptional} it's already listening to on each side, even after
+ * {@link ConnectionRegistry#clear(Direction)}. The listeners only hold
+ * on to the registry weakly, so a neighbor that outlives the boiler doesn't
+ * keep it in memory either. When a capability is invalidated, the owning
+ * boiler is asked to rescan that side: the neighbor may well have a new one.
+ * </p>
+ * Server side only.
+ * 
+ * @author gazotti
+ *
+ * @param <T> the capability's type, e.g. IFluidHandler
+ */
+public final class ConnectionRegistry<T> {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	/**
+	 * What {@link ConnectionRegistry#rescan(Direction)} found: the same neighbor
+	 * as before, a different one (or none where there was one), or nothing at all
+	 * because the neighbor's chunk isn't loaded. They're bits, so the results of
+	 * several registries can be or'ed together.
+	 */
+	public static final int SAME = 0;
+	public static final int CHANGED = 1;
+	public static final int UNLOADED = 2;
+
+	private final TileEntity owner;
+
+	private final Capability<T> capability;
+
+	private final LazyOptional<?>[] connections = new LazyOptional<?>[DIRECTIONS.length];
+
+	private final Object[] handlers = new Object[DIRECTIONS.length];
+
+	/**
+	 * The capability on each side that has a listener of ours, connected or not.
+	 */
+	private final LazyOptional<?>[] listened = new LazyOptional<?>[DIRECTIONS.length];
+
+	private int size;
+
+	public ConnectionRegistry(TileEntity owner, Capability<T> capability) {
+		this.owner = owner;
+		this.capability = capability;
+	}
+
+	/**
+	 * Looks at every side of the owner for neighbors with the capability.
+	 */
+	public void rescan() {
+		for (Direction d : DIRECTIONS)
+			rescan(d);
+	}
+
+	/**
+	 * Looks at one side of the owner for a neighbor with the capability. Sides
+	 * whose chunk isn't loaded are left as they are: looking at them would load
+	 * the chunk.
+	 * 
+	 * @return {@link ConnectionRegistry#SAME}, {@link ConnectionRegistry#CHANGED}
+	 *         or {@link ConnectionRegistry#UNLOADED}.
+	 */
+	public int rescan(Direction d) {
+		if (capability == null || owner.getWorld() == null)
+			return SAME;
+		BlockPos neighbor = owner.getPos().offset(d);
+		if (!owner.getWorld().isBlockLoaded(neighbor))
+			return UNLOADED;
+		TileEntity te = owner.getWorld().getTileEntity(neighbor);
+		LazyOptional<T> cap = te == null ? LazyOptional.empty() : te.getCapability(capability, d.getOpposite());
+		int i = d.getIndex();
+		if (cap == connections[i])
+			return SAME; // already listened to
+		T handler = cap.orElse(null);
+		if (handler == null) {
+			if (connections[i] == null)
+				return SAME; // nobody then, nobody now
+			forget(i);
+			return CHANGED;
+		}
+		if (connections[i] == null)
+			size++;
+		connections[i] = cap;
+		handlers[i] = handler;
+		if (cap != listened[i]) {
+			listened[i] = cap;
+			cap.addListener(new Listener<>(this, i));
+		}
+		return CHANGED;
+	}
+
+	/**
+	 * @return the handler on a given side, or null if there's none.
+	 */
+	public T get(Direction d) {
+		return get(d.getIndex());
+	}
+
+	/**
+	 * @return the handler on the side with the given {@link Direction#getIndex()},
+	 *         or null if there's none.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index) {
+		return (T) handlers[index];
+	}
+
+	/**
+	 * @return how many sides have a handler.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Forgets the connection on one side, e.g. because that side isn't supposed to
+	 * connect to anything anymore. The listener stays: if the same capability is
+	 * found again, it's reused.
+	 */
+	public void clear(Direction d) {
+		forget(d.getIndex());
+	}
+
+	/**
+	 * Forgets every connection. To be called when the owner goes away.
+	 */
+	public void clear() {
+		for (int i = 0; i < connections.length; i++)
+			forget(i);
+	}
+
+	private void forget(int i) {
+		if (connections[i] != null)
+			size--;
+		connections[i] = null;
+		handlers[i] = null;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < handlers.length; i++)
+			if (handlers[i] != null)
+				sb.append(sb.length() > 1 ? ", " : "").append(DIRECTIONS[i]).append('=').append(handlers[i]);
+		return sb.append(']').toString();
+	}
+
+	/**
+	 * Drops a connection when the neighbor's capability is invalidated, unless it
+	 * has already been replaced, and has the owner take another look.
+	 */
+	private static final class Listener<T> implements NonNullConsumer<LazyOptional<T>> {
+		private final WeakReference<ConnectionRegistry<?>> registry;
+		private final int index;
+
+		Listener(ConnectionRegistry<?> registry, int index) {
+			this.registry = new WeakReference<>(registry);
+			this.index = index;
+		}
+
+		@Override
+		public void accept(LazyOptional<T> invalidated) {
+			ConnectionRegistry<?> r = registry.get();
+			if (r == null)
+				return;
+			if (r.listened[index] == invalidated)
+				r.listened[index] = null; // it's done for, and won't be handed out again
+			if (r.connections[index] == invalidated) {
+				gazcreations.borkler.Borkler.LOGGER.debug("A Borkler's neighbor has been invalidated: "
+						+ DIRECTIONS[index] + "/" + r.handlers[index]);
+				r.forget(index);
+				if (r.owner instanceof BorklerTileEntity)
+					((BorklerTileEntity) r.owner).requestRescan(DIRECTIONS[index]);
+			}
+		}
+	}
+}
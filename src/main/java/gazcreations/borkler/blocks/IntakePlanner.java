@@ -0,0 +1,162 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package gazcreations.borkler.blocks;
+
+import java.util.Arrays;
+
+/**
+ * Decides which of a boiler's neighbors are worth asking for water and fuel.
+ * <p>
+ * It learns, side by side, what each neighbor has actually provided. A
+ * neighbor that takes steam and has never provided anything is assumed to be a
+ * consumer (say, a turbine) and is not asked at all. A neighbor that comes up
+ * empty is left alone for a while, twice as long every time it happens again,
+ * up to {@link IntakePlanner#MAX_BACKOFF} turns. Water and fuel are backed off
+ * separately: a pipe that only carries water is still asked for water as often
+ * as the boiler needs it, however many times it's had no fuel to give. Whatever
+ * it learned about a side is forgotten as soon as the neighbor on that side
+ * changes.
+ * </p>
+ * The boiler also only asks for a refill when it's running low (see
+ * {@link IntakePlanner#isLow(int, int)}), and then asks for a full tank's
+ * worth, rather than topping up a few mB every tick.
+ * 
+ * @author gazotti
+ *
+ */
+final class IntakePlanner {
+
+	static final byte WATER = 1;
+	static final byte FUEL = 2;
+
+	/**
+	 * The most turns an empty neighbor is left alone for.
+	 */
+	static final int MAX_BACKOFF = 64;
+
+	/**
+	 * What each side's neighbor has provided so far, as {@link IntakePlanner#WATER}
+	 * and {@link IntakePlanner#FUEL} bits.
+	 */
+	private final byte[] provides = new byte[6];
+
+	/**
+	 * Whether each side's neighbor has taken steam from the boiler.
+	 */
+	private final boolean[] consumer = new boolean[6];
+
+	/**
+	 * How many turns each side is being left alone for, and how many of them are
+	 * left. Water first, then fuel; see {@link IntakePlanner#index(int, byte)}.
+	 */
+	private final int[] backoff = new int[12];
+	private final int[] wait = new int[12];
+
+	/**
+	 * @return true if a tank holding this much out of that capacity should be
+	 *         refilled.
+	 */
+	static boolean isLow(int amount, int capacity) {
+		return amount <= capacity / 2;
+	}
+
+	private static int index(int side, byte what) {
+		return what == WATER ? side : side + 6;
+	}
+
+	/**
+	 * @param what {@link IntakePlanner#WATER} or {@link IntakePlanner#FUEL}
+	 * @return whether the neighbor on a given side should be asked for it this
+	 *         turn. Counts down its backoff if not.
+	 */
+	boolean shouldPoll(int side, byte what) {
+		if (consumer[side] && provides[side] == 0)
+			return false; // it only takes
+		int i = index(side, what);
+		if (wait[i] > 0) {
+			wait[i]--;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return what the neighbor on a given side should be asked for this turn, as
+	 *         {@link IntakePlanner#WATER} and {@link IntakePlanner#FUEL} bits:
+	 *         whatever the side lets in, the boiler is low on, and the neighbor
+	 *         isn't being left alone for.
+	 */
+	byte toAsk(int side, SideMode mode, boolean waterLow, boolean fuelLow) {
+		byte ask = 0;
+		if (mode.water && waterLow && shouldPoll(side, WATER))
+			ask |= WATER;
+		if (mode.fuel && fuelLow && shouldPoll(side, FUEL))
+			ask |= FUEL;
+		return ask;
+	}
+
+	/**
+	 * The neighbor on a given side was asked for some things, and gave some of
+	 * them. Whatever it gave is asked for again next turn; whatever it didn't is
+	 * left alone for a while.
+	 */
+	void answered(int side, byte asked, byte gave) {
+		provides[side] |= gave;
+		for (byte what = WATER; what <= FUEL; what <<= 1) {
+			if ((asked & what) == 0)
+				continue;
+			int i = index(side, what);
+			if ((gave & what) != 0)
+				backoff[i] = 0;
+			else
+				backoff[i] = backoff[i] == 0 ? 1 : Math.min(MAX_BACKOFF, backoff[i] * 2);
+			wait[i] = backoff[i];
+		}
+	}
+
+	/**
+	 * The neighbor on a given side has taken some steam.
+	 */
+	void consumed(int side) {
+		consumer[side] = true;
+	}
+
+	/**
+	 * Forgets everything about a side, e.g. because its neighbor changed.
+	 */
+	void reset(int side) {
+		provides[side] = 0;
+		consumer[side] = false;
+		backoff[index(side, WATER)] = 0;
+		backoff[index(side, FUEL)] = 0;
+		wait[index(side, WATER)] = 0;
+		wait[index(side, FUEL)] = 0;
+	}
+
+	/**
+	 * Forgets everything.
+	 */
+	void reset() {
+		Arrays.fill(provides, (byte) 0);
+		Arrays.fill(consumer, false);
+		Arrays.fill(backoff, 0);
+		Arrays.fill(wait, 0);
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package gazcreations.borkler.blocks;
+
+import java.util.Locale;
+
+/**
+ * What a single face of a boiler is allowed to do. Set by sneak-right-clicking
+ * the face with an empty hand.
+ * <p>
+ * A face only exposes the capabilities its mode allows, and the boiler only
+ * pulls from or pushes to its neighbors through faces that allow it, so that
+ * neither the boiler nor the pipes next to it waste time probing faces that
+ * were never meant to be used.
+ * </p>
+ * 
+ * @author gazotti
+ *
+ */
+public enum SideMode {
+	/**
+	 * Anything goes. The default.
+	 */
+	AUTO(true, true, true, true, true),
+	WATER_IN(true, false, false, false, false),
+	FUEL_IN(false, true, false, false, false),
+	ITEM_IN(false, false, true, false, false),
+	/**
+	 * The boiler pushes steam out of this face. Steam can be pulled out too.
+	 */
+	STEAM_PUSH(false, false, false, true, true),
+	/**
+	 * Steam can be pulled out of this face, but the boiler won't push any.
+	 */
+	STEAM_PULL(false, false, false, false, true),
+	DISABLED(false, false, false, false, false);
+
+	private static final SideMode[] VALUES = values();
+
+	/**
+	 * Water, fuel and items can go in through this face.
+	 */
+	public final boolean water, fuel, items;
+	/**
+	 * The boiler pushes steam through this face, and steam may be drained from
+	 * it.
+	 */
+	public final boolean push, pull;
+
+	private SideMode(boolean water, boolean fuel, boolean items, boolean push, boolean pull) {
+		this.water = water;
+		this.fuel = fuel;
+		this.items = items;
+		this.push = push;
+		this.pull = pull;
+	}
+
+	/**
+	 * @return whether any fluid goes in or out of this face.
+	 */
+	public boolean hasFluids() {
+		return water || fuel || push || pull;
+	}
+
+	/**
+	 * @return the next mode in line, wrapping around.
+	 */
+	public SideMode next() {
+		return VALUES[(ordinal() + 1) % VALUES.length];
+	}
+
+	public String getTranslationKey() {
+		return "borkler.side_mode." + name().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @return the mode with a given ordinal, or {@link SideMode#AUTO} if there's
+	 *         no such thing.
+	 */
+	public static SideMode byOrdinal(int ordinal) {
+		return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : AUTO;
+	}
+}
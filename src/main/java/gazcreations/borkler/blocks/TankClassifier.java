@@ -0,0 +1,128 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package gazcreations.borkler.blocks;
+
+import gazcreations.borkler.Index;
+import gazcreations.borkler.recipes.FuelIndex;
+import it.unimi.dsi.fastutil.objects.Reference2ByteOpenHashMap;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.tags.FluidTags;
+import net.minecraft.tags.ITag;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.registries.ForgeRegistries;
+
+/**
+ * Knows which of the boiler's tanks a given {@link Fluid} goes into.
+ * <p>
+ * Every fill, drain and pull used to run a tag check for water, a fuel lookup
+ * and yet another tag lookup for steam. Pipes like to ask these questions every
+ * tick, so we answer them all at once, for every registered fluid, and keep the
+ * answers in a map. The map is rebuilt whenever the {@link FuelIndex} is, which
+ * covers both tag and recipe reloads.
+ * </p>
+ * 
+ * @author gazotti
+ *
+ */
+public final class TankClassifier {
+
+	public static final byte WATER = 0;
+	public static final byte FUEL = 1;
+	public static final byte STEAM = 2;
+	public static final byte NONE = -1;
+
+	private static final ResourceLocation STEAM_TAG = new ResourceLocation("forge", "fluids/steam");
+
+	/**
+	 * The current table, swapped in whole by {@link TankClassifier#rebuild()}.
+	 */
+	private static volatile Table table = new Table(new Reference2ByteOpenHashMap<>(), -1);
+
+	private TankClassifier() {
+	}
+
+	/**
+	 * @param fluid The {@link Fluid} to check
+	 * @return 0 if water, 1 if fuel, 2 if steam, or -1 if neither.
+	 */
+	public static byte getTank(Fluid fluid) {
+		Table t = table;
+		if (FuelIndex.getVersion() != t.builtFrom)
+			t = rebuild();
+		return t.tanks.getByte(fluid);
+	}
+
+	/**
+	 * @return true if the fluid can be inserted into the boiler (water or fuel).
+	 */
+	public static boolean isInput(Fluid fluid) {
+		byte tank = getTank(fluid);
+		return tank == WATER || tank == FUEL;
+	}
+
+	private static synchronized Table rebuild() {
+		int version = FuelIndex.getVersion();
+		if (version == table.builtFrom)
+			return table;
+		ITag<Fluid> steamTag = FluidTags.getCollection().get(STEAM_TAG);
+		Reference2ByteOpenHashMap<Fluid> tanks = new Reference2ByteOpenHashMap<>();
+		for (Fluid fluid : ForgeRegistries.FLUIDS.getValues()) {
+			byte tank = classify(fluid, steamTag);
+			if (tank != NONE)
+				tanks.put(fluid, tank);
+		}
+		return table = new Table(tanks, version);
+	}
+
+	/**
+	 * The slow path. Water goes first, then fuel, then steam, same as it always
+	 * did.
+	 */
+	private static byte classify(Fluid fluid, ITag<Fluid> steamTag) {
+		if (fluid.isIn(FluidTags.WATER))
+			return WATER;
+		if (FuelIndex.isFuel(fluid))
+			return FUEL;
+		if (fluid.isEquivalentTo(Index.Fluids.STEAM) || fluid.isEquivalentTo(Index.Fluids.STEAMSOURCE)
+				|| (steamTag != null && fluid.isIn(steamTag)))
+			return STEAM;
+		return NONE;
+	}
+
+	/**
+	 * A map and the {@link FuelIndex#getVersion()} it was built from. Never
+	 * modified once published.
+	 */
+	private static final class Table {
+		/**
+		 * Fluid -> tank number. Fluids the boiler can't hold map to
+		 * {@link TankClassifier#NONE}.
+		 */
+		final Reference2ByteOpenHashMap<Fluid> tanks;
+		final int builtFrom;
+
+		Table(Reference2ByteOpenHashMap<Fluid> tanks, int builtFrom) {
+			tanks.defaultReturnValue(NONE);
+			tanks.trim();
+			this.tanks = tanks;
+			this.builtFrom = builtFrom;
+		}
+	}
+}
@@ -0,0 +1,252 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.blocks;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Lets other threads fill and drain a boiler without touching its tanks.
+ * <p>
+ * The tanks themselves belong to the server thread. Every so often, the
+ * server thread hands out credit: how much water and fuel would still fit,
+ * and how much steam there is. Other threads (pipe mods with their own worker
+ * threads, mostly) fill and drain against that credit, with a compare-and-set
+ * and no locks. Next time around, the server thread works out how much credit
+ * was used, applies it to the tanks and hands out new credit.
+ * </p>
+ * <p>
+ * The credit is always on the safe side: while it's out, the boiler itself
+ * only uses water and fuel up and makes more steam, so there's always at least
+ * as much room and steam as was promised. Whatever the server thread does the
+ * other way around (taking in water or fuel, sending out steam) has to
+ * {@link TankCredits#reclaim()} the credit first.
+ * </p>
+ * Each tank's credit lives in the same number as what other threads are shown
+ * to be in that tank, so they never see one without the other: what they
+ * fill and drain shows up right away, and nothing else does until the server
+ * thread hands out credit again. <br>
+ * Plain Java, so it can be tested without a game around it.
+ * 
+ * @author gazotti
+ *
+ * @param <F> the fuel's type. Only ever compared by identity.
+ */
+final class TankCredits<F> {
+
+	/**
+	 * Each of these is, from the top: how many times credit has been handed out
+	 * or taken back (32 bits), how much is in the tank as far as other threads
+	 * know (16 bits), and how much credit is left (16 bits). The count is there
+	 * so that fuel credit can't be spent on a fuel type it wasn't given out for.
+	 */
+	private final AtomicLong water = new AtomicLong();
+	private final AtomicLong fuel = new AtomicLong();
+	private final AtomicLong steam = new AtomicLong();
+
+	/**
+	 * The only fuel that may be filled against the credit, and the one other
+	 * threads are shown; null if none. Starting an empty fuel tank is left to the
+	 * server thread.
+	 */
+	private volatile F fuelType;
+
+	private final int waterCapacity;
+	private final int fuelCapacity;
+
+	/**
+	 * How much credit was handed out last time, and how much of it the last
+	 * reclaim found used. Server thread only.
+	 */
+	private int waterGiven, fuelGiven, steamGiven;
+	private int waterUsed, fuelUsed, steamUsed;
+	private F fuelGivenType;
+	private int generation;
+
+	TankCredits(int waterCapacity, int fuelCapacity) {
+		this.waterCapacity = waterCapacity;
+		this.fuelCapacity = fuelCapacity;
+	}
+
+	/**
+	 * @return how much water can be filled, up to amount. Taken off the credit if
+	 *         execute is true.
+	 */
+	int takeWater(int amount, boolean execute) {
+		return take(water, amount, execute, 1);
+	}
+
+	/**
+	 * @return how much of a given fuel can be filled, up to amount. Taken off the
+	 *         credit if execute is true.
+	 */
+	int takeFuel(F type, int amount, boolean execute) {
+		while (true) {
+			long state = fuel.get();
+			// read after the credit: if it's newer than the credit, the credit has
+			// changed too and the swap below fails
+			F allowed = fuelType;
+			int taken = Math.min(creditOf(state), amount);
+			if (allowed != type || taken <= 0)
+				return 0;
+			if (!execute || fuel.compareAndSet(state, state + ((long) taken << 16) - taken))
+				return taken;
+		}
+	}
+
+	/**
+	 * @return how much steam can be drained, up to amount. Taken off the credit if
+	 *         execute is true.
+	 */
+	int takeSteam(int amount, boolean execute) {
+		return take(steam, amount, execute, -1);
+	}
+
+	/**
+	 * @param sign 1 if taking credit puts something in the tank, -1 if it takes
+	 *             something out.
+	 */
+	private static int take(AtomicLong credit, int amount, boolean execute, int sign) {
+		while (true) {
+			long state = credit.get();
+			int taken = Math.min(creditOf(state), amount);
+			if (taken <= 0)
+				return 0;
+			if (!execute || credit.compareAndSet(state, state + sign * ((long) taken << 16) - taken))
+				return taken;
+		}
+	}
+
+	/**
+	 * @return how much water other threads get to see.
+	 */
+	int shownWater() {
+		return amountOf(water.get());
+	}
+
+	/**
+	 * @return how much steam other threads get to see.
+	 */
+	int shownSteam() {
+		return amountOf(steam.get());
+	}
+
+	/**
+	 * Hands the fuel other threads get to see to a reader: its type (null if
+	 * none) and how much of it there is, both as of the same moment.
+	 */
+	<R> R shownFuel(BiFunction<F, Integer, R> reader) {
+		while (true) {
+			long state = fuel.get();
+			F type = fuelType;
+			// the type goes out before the credit, so if the credit hasn't changed
+			// in the meantime, neither has the type
+			if (fuel.get() == state)
+				return reader.apply(type, amountOf(state));
+		}
+	}
+
+	/**
+	 * Takes back all credit, and works out how much of it was used. Until the next
+	 * {@link TankCredits#publish(int, Object, int, int)}, other threads get
+	 * nothing. Server thread only.
+	 * 
+	 * @return true if any credit was used. See
+	 *         {@link TankCredits#getWaterUsed()} and the like for how much.
+	 */
+	boolean reclaim() {
+		int gen = ++generation;
+		waterUsed = waterGiven - creditOf(close(water, gen));
+		fuelUsed = fuelGiven - creditOf(close(fuel, gen));
+		steamUsed = steamGiven - creditOf(close(steam, gen));
+		waterGiven = fuelGiven = steamGiven = 0;
+		return waterUsed != 0 || fuelUsed != 0 || steamUsed != 0;
+	}
+
+	/**
+	 * Sets a tank's credit to zero, and leaves what's shown alone.
+	 * 
+	 * @return what it was before.
+	 */
+	private static long close(AtomicLong credit, int gen) {
+		while (true) {
+			long state = credit.get();
+			if (credit.compareAndSet(state, pack(gen, amountOf(state), 0)))
+				return state;
+		}
+	}
+
+	/**
+	 * Hands out new credit based on what's in the tanks now, which is also what
+	 * other threads are shown from now on. To be called right after
+	 * {@link TankCredits#reclaim()}, once what was used has been applied to the
+	 * tanks. Server thread only.
+	 */
+	void publish(int waterAmount, F fuelAmountType, int fuelAmount, int steamAmount) {
+		int gen = ++generation;
+		waterGiven = Math.max(0, waterCapacity - waterAmount);
+		fuelGivenType = fuelAmount > 0 ? fuelAmountType : null;
+		fuelGiven = fuelGivenType == null ? 0 : Math.max(0, fuelCapacity - fuelAmount);
+		steamGiven = Math.max(0, steamAmount);
+		// the fuel type goes out before the credit. See takeFuel
+		fuelType = fuelGivenType;
+		water.set(pack(gen, waterAmount, waterGiven));
+		fuel.set(pack(gen, fuelGivenType == null ? 0 : fuelAmount, fuelGiven));
+		steam.set(pack(gen, steamAmount, steamGiven));
+	}
+
+	/**
+	 * @return how much water other threads filled, as of the last reclaim.
+	 */
+	int getWaterUsed() {
+		return waterUsed;
+	}
+
+	/**
+	 * @return how much fuel other threads filled, as of the last reclaim. It's
+	 *         all of {@link TankCredits#getFuelUsedType()}.
+	 */
+	int getFuelUsed() {
+		return fuelUsed;
+	}
+
+	F getFuelUsedType() {
+		return fuelGivenType;
+	}
+
+	/**
+	 * @return how much steam other threads drained, as of the last reclaim.
+	 */
+	int getSteamUsed() {
+		return steamUsed;
+	}
+
+	private static long pack(int gen, int amount, int credit) {
+		return (long) gen << 32 | (Math.max(0, Math.min(amount, 0xFFFF)) & 0xFFFFL) << 16
+				| (Math.max(0, Math.min(credit, 0xFFFF)) & 0xFFFFL);
+	}
+
+	private static int amountOf(long state) {
+		return (int) (state >>> 16) & 0xFFFF;
+	}
+
+	private static int creditOf(long state) {
+		return (int) state & 0xFFFF;
+	}
+}
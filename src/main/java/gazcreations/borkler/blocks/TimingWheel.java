@@ -0,0 +1,161 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package gazcreations.borkler.blocks;
+
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+/**
+ * A two-level hierarchical timing wheel, used by the {@link BoilerManager} to
+ * remember when sleeping boilers are due to wake up.
+ * <p>
+ * The near wheel has one bucket per tick for the next 256 ticks; the far wheel
+ * has one bucket per 256 ticks for the next 65536. Whatever's further away than
+ * that waits in an overflow list. Far buckets are poured into the near wheel as
+ * time reaches them, so scheduling and firing are both constant time, and
+ * nothing is looked at on the ticks in between.
+ * </p>
+ * Entries are never removed: when a boiler is woken early or rescheduled, its
+ * old entry simply stops matching its due time (see the constructor) and is
+ * dropped when reached.
+ * 
+ * @author gazotti
+ *
+ */
+final class TimingWheel<T> {
+
+	private static final int BITS = 8;
+	private static final int SIZE = 1 << BITS;
+	private static final int MASK = SIZE - 1;
+
+	private final ObjectArrayList<T>[] near;
+	private final ObjectArrayList<T>[] far;
+	private final ObjectArrayList<T> overflow = new ObjectArrayList<>();
+
+	/**
+	 * Where a bucket's entries go while they're being re-filed. Reused.
+	 */
+	private final ObjectArrayList<T> scratch = new ObjectArrayList<>();
+
+	/**
+	 * Tells when an entry is due, or -1 if it isn't scheduled anymore.
+	 */
+	private final ToLongFunction<T> dueTime;
+
+	/**
+	 * The last tick the wheel has been advanced to. -1 until the first advance.
+	 */
+	private long now = -1;
+
+	@SuppressWarnings("unchecked")
+	TimingWheel(ToLongFunction<T> dueTime) {
+		this.dueTime = dueTime;
+		near = new ObjectArrayList[SIZE];
+		far = new ObjectArrayList[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			near[i] = new ObjectArrayList<>();
+			far[i] = new ObjectArrayList<>();
+		}
+	}
+
+	/**
+	 * Schedules something to fire when the wheel reaches a given tick. Must be in
+	 * the future.
+	 */
+	void schedule(T entry, long at) {
+		if (now < 0)
+			now = at - 1;
+		long delta = at - now;
+		if (delta < SIZE)
+			near[(int) (at & MASK)].add(entry);
+		else if (delta < (long) SIZE * SIZE)
+			far[(int) ((at >>> BITS) & MASK)].add(entry);
+		else
+			overflow.add(entry);
+	}
+
+	/**
+	 * Moves the wheel forward to a given tick, handing every entry that's due on
+	 * the way to the consumer.
+	 */
+	void advance(long time, Consumer<T> due) {
+		if (now < 0 || time - now > (long) SIZE * SIZE) {
+			// first time around, or the clock jumped. Start over from here.
+			ObjectArrayList<T> all = new ObjectArrayList<>(overflow);
+			overflow.clear();
+			for (int i = 0; i < SIZE; i++) {
+				all.addAll(near[i]);
+				near[i].clear();
+				all.addAll(far[i]);
+				far[i].clear();
+			}
+			now = time;
+			for (T entry : all) {
+				long at = dueTime.applyAsLong(entry);
+				if (at < 0)
+					continue;
+				if (at <= time)
+					due.accept(entry);
+				else
+					schedule(entry, at);
+			}
+			return;
+		}
+		while (now < time) {
+			long t = ++now;
+			if ((t & MASK) == 0) {
+				if (((t >>> BITS) & MASK) == 0)
+					cascade(overflow);
+				cascade(far[(int) ((t >>> BITS) & MASK)]);
+			}
+			ObjectArrayList<T> bucket = near[(int) (t & MASK)];
+			if (bucket.isEmpty())
+				continue;
+			for (int i = 0; i < bucket.size(); i++) {
+				T entry = bucket.get(i);
+				if (dueTime.applyAsLong(entry) == t)
+					due.accept(entry);
+			}
+			bucket.clear();
+		}
+	}
+
+	/**
+	 * Re-files everything in a bucket, now that it's closer.
+	 */
+	private void cascade(ObjectArrayList<T> bucket) {
+		if (bucket.isEmpty())
+			return;
+		// entries may be filed right back into the bucket, so they're moved out first
+		scratch.addElements(0, bucket.elements(), 0, bucket.size());
+		bucket.clear();
+		for (int i = 0; i < scratch.size(); i++) {
+			T entry = scratch.get(i);
+			long at = dueTime.applyAsLong(entry);
+			if (at > now)
+				schedule(entry, at);
+			else if (at == now)
+				near[(int) (at & MASK)].add(entry);
+		}
+		scratch.clear();
+	}
+}
@@ -26,7 +26,8 @@ import java.util.List;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.systems.RenderSystem;
 
-import gazcreations.borkler.blocks.BorklerTileEntity;
+import org.apache.commons.lang3.tuple.Pair;
+
 import gazcreations.borkler.container.BorklerContainer;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.IGuiEventListener;
@@ -61,7 +62,6 @@ public class BorklerScreen extends ContainerScreen<BorklerContainer> implements
 	public static final ResourceLocation overlayTexture = new ResourceLocation("borkler",
 			"textures/gui/boiler_overlay.png");
 	private TankSimulator[] tanks;
-	private BorklerTileEntity ent;
 
 	/**
 	 * A little screen constructor, containing the back-end container and the
@@ -75,7 +75,6 @@ public class BorklerScreen extends ContainerScreen<BorklerContainer> implements
 		super(screenContainer, inv, titleIn);
 		this.xSize = 184;
 		this.ySize = 151;
-		ent = screenContainer.getTileEntity();
 		initTanks(Minecraft.getInstance().getMainWindow().getWidth(),
 				Minecraft.getInstance().getMainWindow().getHeight());
 		passEvents = false;
@@ -269,11 +268,13 @@ public class BorklerScreen extends ContainerScreen<BorklerContainer> implements
 		}
 
 		int getCapacity() {
-			return ent.getTankCapacity(index);
+			List<Pair<FluidStack, Integer>> levels = container.getTanks();
+			return levels == null ? 0 : levels.get(index).getValue();
 		}
 
 		FluidStack getFluid() {
-			return ent.getFluidInTank(index);
+			List<Pair<FluidStack, Integer>> levels = container.getTanks();
+			return levels == null ? FluidStack.EMPTY : levels.get(index).getKey();
 		}
 	}
 
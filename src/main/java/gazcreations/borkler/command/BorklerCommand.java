@@ -0,0 +1,72 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package gazcreations.borkler.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.context.CommandContext;
+
+import gazcreations.borkler.blocks.BoilerManager;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraft.world.server.ServerWorld;
+
+/**
+ * The /borkler command. For now, all it does is tell server operators how
+ * their boilers are doing:
+ * <p>
+ * <code>/borkler stats</code> lists, for every world, how many boilers are
+ * loaded, awake and scheduled, and how many of them are near a player, far
+ * from every player, or in chunks that aren't ticking. Handy for tuning the
+ * level of detail settings in borkler.toml.
+ * </p>
+ * 
+ * @author gazotti
+ *
+ */
+public final class BorklerCommand {
+
+	private BorklerCommand() {
+	}
+
+	public static void register(CommandDispatcher<CommandSource> dispatcher) {
+		dispatcher.register(Commands.literal("borkler").requires(source -> source.hasPermissionLevel(2))
+				.then(Commands.literal("stats").executes(BorklerCommand::stats)));
+	}
+
+	private static int stats(CommandContext<CommandSource> context) {
+		CommandSource source = context.getSource();
+		int total = 0;
+		for (ServerWorld world : source.getServer().getWorlds()) {
+			BoilerManager manager = BoilerManager.getIfPresent(world);
+			if (manager == null || manager.getLoadedCount() == 0)
+				continue;
+			int[] lod = manager.getLodCounts();
+			source.sendFeedback(new StringTextComponent(String.format(
+					"%s: %d loaded, %d awake, %d scheduled | near %d, far %d, lazy %d",
+					world.getDimensionKey().getLocation(), manager.getLoadedCount(), manager.getAwakeCount(),
+					manager.getScheduledCount(), lod[0], lod[1], lod[2])), false);
+			total += manager.getLoadedCount();
+		}
+		if (total == 0)
+			source.sendFeedback(new StringTextComponent("No boilers loaded."), false);
+		return total;
+	}
+}
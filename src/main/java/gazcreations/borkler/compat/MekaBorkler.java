@@ -19,22 +19,17 @@
 
 package gazcreations.borkler.compat;
 
-import java.util.Collections;
-import java.util.Set;
-
 import javax.annotation.Nonnull;
 
 import gazcreations.borkler.blocks.BorklerTileEntity;
-import it.unimi.dsi.fastutil.objects.ObjectArraySet;
+import gazcreations.borkler.blocks.ConnectionRegistry;
 import mekanism.api.Action;
 import mekanism.api.chemical.gas.GasStack;
 import mekanism.api.chemical.gas.IGasHandler;
 import mekanism.common.registries.MekanismGases;
-import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.Direction;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.CapabilityInject;
-import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.fluids.capability.IFluidHandler.FluidAction;
 
 /**
@@ -55,44 +50,47 @@ public class MekaBorkler implements IGasHandler {
 
 	private final BorklerTileEntity boiler;
 
-	private Set<LazyOptional<IGasHandler>> gasConsumers;
+	/**
+	 * Up to 6 neighbors that take gases, one per side.
+	 */
+	private final ConnectionRegistry<IGasHandler> gasConsumers;
 
+	/**
+	 * Only ever built once per boiler, and only if Mekanism is loaded. See
+	 * {@link MekanismCompat}.
+	 */
 	public MekaBorkler(@Nonnull BorklerTileEntity borkler) {
 		assert borkler != null;
 		boiler = borkler;
-		gasConsumers = Collections.emptySet();
-		updateGasConnections();
+		gasConsumers = new ConnectionRegistry<>(borkler, GasHandlerCapability);
 	}
 
-	public void updateGasConnections() {
-		if (boiler.getWorld().isRemote())
-			return;
-		Set<LazyOptional<IGasHandler>> consumers = new ObjectArraySet<LazyOptional<IGasHandler>>(7) {
-
-			private static final long serialVersionUID = 1L;
-
-			public boolean add(LazyOptional<IGasHandler> element) {
-				if (element == null || !element.isPresent())
-					return false;
-				return super.add(element);
-			}
-		};
-		gazcreations.borkler.Borkler.LOGGER.debug("Borkler @" + boiler.getWorld() + " ," + boiler.getPos()
-				+ " has been politely asked to update its gas connections.");
-		gazcreations.borkler.Borkler.LOGGER.debug("Current connections are: " + gasConsumers.toString());
-		LazyOptional<IGasHandler> cap = null;
-		TileEntity te = null;
-		for (Direction d : Direction.values()) {
-			if ((te = boiler.getWorld().getTileEntity(boiler.getPos().offset(d))) != null) {
-				cap = te.getCapability(GasHandlerCapability, d.getOpposite());
-				// if (cap.isPresent()) override of Set.add will prevent empty Optionals from
-				// being added
-				boiler.addWithListener(consumers, cap);
-			}
-		}
-		gazcreations.borkler.Borkler.LOGGER.debug(
-				"Borkler @" + boiler.getWorld() + " ," + boiler.getPos() + "has updated its connections: " + consumers.toString());
-		this.gasConsumers = consumers;
+	/**
+	 * Looks for a gas consumer on one side of the boiler, or forgets the one
+	 * there if the side isn't supposed to push steam out.
+	 * 
+	 * @return what was found, as in {@link ConnectionRegistry#rescan(Direction)}.
+	 */
+	public int rescan(Direction side, boolean push) {
+		if (push)
+			return gasConsumers.rescan(side);
+		gasConsumers.clear(side);
+		return ConnectionRegistry.SAME;
+	}
+
+	/**
+	 * @return true if there's at least one gas consumer next to the boiler.
+	 */
+	public boolean hasConnections() {
+		return !gasConsumers.isEmpty();
+	}
+
+	/**
+	 * Lets go of every gas consumer this wrapper knows about. Called when the
+	 * wrapped boiler's capabilities are invalidated.
+	 */
+	public void clearConnections() {
+		gasConsumers.clear();
 	}
 
 	public BorklerTileEntity getWrapped() {
@@ -163,8 +161,36 @@ public class MekaBorkler implements IGasHandler {
 		return GasStack.EMPTY;
 	}
 
-	public void autoOutputGas() {
-		// TODO implement
+	/**
+	 * Pushes the boiler's steam, as Mekanism steam, into the gas consumers next to
+	 * it: one insert per consumer, each offered its fair share of what's left.
+	 * <br>
+	 * Only to be called while the boiler is exchanging with its neighbors, so that
+	 * nobody else drains it in the meantime.
+	 * 
+	 * @return true if any steam was sent out.
+	 */
+	public boolean autoOutputGas() {
+		if (gasConsumers.isEmpty())
+			return false;
+		int steam = boiler.getAmountInTank(2);
+		if (steam <= 0)
+			return false;
+		int remaining = steam;
+		int consumers = gasConsumers.size();
+		for (int d = 0; d < 6 && remaining > 0 && consumers > 0; d++) {
+			IGasHandler consumer = gasConsumers.get(d);
+			if (consumer == null)
+				continue;
+			int share = (remaining + consumers - 1) / consumers--;
+			GasStack left = consumer.insertChemical(MekanismGases.STEAM.getStack(share), Action.EXECUTE);
+			remaining -= share - (int) Math.min(share, left.getAmount());
+		}
+		int sent = steam - remaining;
+		if (sent <= 0)
+			return false;
+		boiler.steamSentOut(sent);
+		return true;
 	}
 
 }
@@ -0,0 +1,62 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.compat;
+
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.fml.ModList;
+
+/**
+ * The one place that knows whether Mekanism is around. Worked out once, during
+ * common setup; if it isn't there, none of Borkler's Mekanism classes (see
+ * {@link MekaBorkler}) are ever loaded.
+ * 
+ * @author gazotti
+ *
+ */
+public final class MekanismCompat {
+
+	private static boolean loaded;
+
+	private MekanismCompat() {
+	}
+
+	/**
+	 * Checks for Mekanism. Called by Borkler during common setup.
+	 */
+	public static void init() {
+		loaded = ModList.get().isLoaded("mekanism");
+		if (loaded)
+			gazcreations.borkler.Borkler.LOGGER.info("Mekanism is here. Boilers will hand out steam as a gas, too.");
+	}
+
+	/**
+	 * @return true if Mekanism is loaded.
+	 */
+	public static boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * @return true if a given capability is Mekanism's gas handler. Doesn't touch
+	 *         Mekanism at all if it isn't loaded.
+	 */
+	public static boolean isGasHandler(Capability<?> cap) {
+		return loaded && cap == MekaBorkler.GasHandlerCapability;
+	}
+}
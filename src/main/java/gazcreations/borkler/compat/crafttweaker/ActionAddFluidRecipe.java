@@ -21,6 +21,7 @@ package gazcreations.borkler.compat.crafttweaker;
 import com.blamejared.crafttweaker.api.managers.IRecipeManager;
 import com.blamejared.crafttweaker.impl.actions.recipes.ActionAddRecipe;
 
+import gazcreations.borkler.recipes.FuelIndex;
 import net.minecraft.item.crafting.IRecipe;
 
 /**
@@ -36,4 +37,14 @@ public class ActionAddFluidRecipe extends ActionAddRecipe {
 		super(manager, recipe, null);
 	}
 
+	/**
+	 * Adds the recipe, then lets the {@link FuelIndex} know that it has to pick
+	 * it up.
+	 */
+	@Override
+	public void apply() {
+		super.apply();
+		FuelIndex.invalidate();
+	}
+
 }
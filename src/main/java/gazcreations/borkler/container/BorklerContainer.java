@@ -26,8 +26,12 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import gazcreations.borkler.Index;
 import gazcreations.borkler.blocks.BorklerTileEntity;
+import gazcreations.borkler.network.BorklerSnapshot;
+import gazcreations.borkler.network.BorklerChunkUpdate;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.fluid.Fluids;
 import net.minecraft.inventory.IInventory;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.inventory.container.Container;
@@ -43,6 +47,11 @@ public class BorklerContainer extends Container {
 	private List<Pair<FluidStack, Integer>> tanksWithCapacity;
 	private BlockPos tileEntityPos; //
 	private BorklerTileEntity borklerTE;
+	/**
+	 * What the client knows about the boiler, as of the last
+	 * {@link BorklerChunkUpdate}.
+	 */
+	private final BorklerSnapshot levels = new BorklerSnapshot();
 
 	/**
 	 * This constructor is called on the client when the Boiler is right-clicked.
@@ -82,8 +91,7 @@ public class BorklerContainer extends Container {
 
 			@Override
 			public boolean isItemValid(ItemStack stack) {
-				boolean valid = borklerInventory.isItemValidForSlot(this.getSlotIndex(), stack);
-				return valid;
+				return BorklerTileEntity.isValidSolidFuel(stack);
 			}
 
 			@Override
@@ -110,10 +118,13 @@ public class BorklerContainer extends Container {
 			this.borklerTE = (BorklerTileEntity) playerInv.player.world.getTileEntity(tileEntityPos);
 			if (borklerTE != null) {
 				gazcreations.borkler.Borkler.LOGGER.debug(this.getClass() + ": BorklerTE found");
+				// whatever came with the chunk, until the server sends the real thing
+				borklerTE.snapshot(levels);
 				this.tanksWithCapacity = new ArrayList<Pair<FluidStack, Integer>>(4);
 				for (int i = 0; i <= 2; i++) {
-					this.tanksWithCapacity.add(Pair.of(borklerTE.getFluidInTank(i), borklerTE.getTankCapacity(i)));
+					this.tanksWithCapacity.add(Pair.of(FluidStack.EMPTY, borklerTE.getTankCapacity(i)));
 				}
+				refreshTanks();
 			}
 		}
 	}
@@ -175,6 +186,30 @@ public class BorklerContainer extends Container {
 		this.tanksWithCapacity = tanks;
 	}
 
+	/**
+	 * Applies the changes the server sent. Client side only.
+	 * 
+	 * @param mask which fields of the snapshot changed.
+	 */
+	public void updateTanks(BorklerSnapshot changes, int mask) {
+		if (tanksWithCapacity == null)
+			return;
+		levels.copyFrom(changes, mask);
+		refreshTanks();
+	}
+
+	private void refreshTanks() {
+		setTank(0, Fluids.WATER, levels.water);
+		setTank(1, levels.fuelType, levels.fuel);
+		setTank(2, Index.Fluids.STEAMSOURCE, levels.steam);
+	}
+
+	private void setTank(int tank, Fluid fluid, int amount) {
+		FluidStack stack = amount <= 0 || fluid == null || fluid == Fluids.EMPTY ? FluidStack.EMPTY
+				: new FluidStack(fluid, amount);
+		tanksWithCapacity.set(tank, Pair.of(stack, tanksWithCapacity.get(tank).getValue()));
+	}
+
 	public BlockPos getTileEntityPos() {
 		return tileEntityPos;
 	}
@@ -0,0 +1,152 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.network;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import gazcreations.borkler.container.BorklerContainer;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.inventory.container.Container;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.network.NetworkEvent.Context;
+
+/**
+ * What changed in a boiler, for the players that have its GUI open; see
+ * {@link BorklerPacketHandler#sendToPlayers(List, Object)}. Everybody else only
+ * gets to see whether it's burning, which is in its block state anyway.
+ * <p>
+ * Boilers are given by their chunk and their position within it, followed by a
+ * {@link BorklerSnapshot} of whatever changed. The format has room for several,
+ * but since a player only ever has one boiler open, and nobody gets to see what
+ * they don't have open, the server only ever puts in the one its recipients are
+ * looking at.
+ * </p>
+ * 
+ * @author gazotti
+ *
+ */
+public class BorklerChunkUpdate {
+
+	private final int chunkX;
+	private final int chunkZ;
+	/**
+	 * Each boiler's position within the chunk: x, z and y, packed into a short.
+	 */
+	private final IntArrayList positions = new IntArrayList(4);
+	private final IntArrayList masks = new IntArrayList(4);
+	private final ObjectArrayList<BorklerSnapshot> snapshots = new ObjectArrayList<>(4);
+	/**
+	 * Whoever needs to hear about any of it. Server side only.
+	 */
+	private final ObjectArrayList<ServerPlayerEntity> recipients = new ObjectArrayList<>(2);
+
+	public BorklerChunkUpdate(int chunkX, int chunkZ) {
+		this.chunkX = chunkX;
+		this.chunkZ = chunkZ;
+	}
+
+	/**
+	 * Adds a boiler in this chunk. The snapshot is only read when the message is
+	 * encoded, which is right away when it's sent.
+	 * 
+	 * @param mask which fields of the snapshot changed.
+	 */
+	public void add(BlockPos pos, BorklerSnapshot snapshot, int mask) {
+		positions.add(pack(pos));
+		masks.add(mask);
+		snapshots.add(snapshot);
+	}
+
+	/**
+	 * Adds some players to the list of those that get this message. Each one gets
+	 * it once.
+	 */
+	public void addRecipients(List<ServerPlayerEntity> players) {
+		for (int i = 0; i < players.size(); i++) {
+			ServerPlayerEntity player = players.get(i);
+			if (!recipients.contains(player))
+				recipients.add(player);
+		}
+	}
+
+	public List<ServerPlayerEntity> getRecipients() {
+		return recipients;
+	}
+
+	public boolean isEmpty() {
+		return positions.isEmpty();
+	}
+
+	private static int pack(BlockPos pos) {
+		return (pos.getX() & 15) << 12 | (pos.getZ() & 15) << 8 | (pos.getY() & 255);
+	}
+
+	/**
+	 * BorklerChunkUpdate is as follows: chunk x, chunk z, how many boilers there
+	 * are, then for each boiler its packed position and snapshot.
+	 */
+	public static void encode(BorklerChunkUpdate data, PacketBuffer packet) {
+		packet.writeInt(data.chunkX);
+		packet.writeInt(data.chunkZ);
+		packet.writeVarInt(data.positions.size());
+		for (int i = 0; i < data.positions.size(); i++) {
+			packet.writeShort(data.positions.getInt(i));
+			data.snapshots.get(i).write(packet, data.masks.getInt(i));
+		}
+	}
+
+	public static BorklerChunkUpdate decode(PacketBuffer packet) {
+		BorklerChunkUpdate data = new BorklerChunkUpdate(packet.readInt(), packet.readInt());
+		int count = packet.readVarInt();
+		for (int i = 0; i < count; i++) {
+			data.positions.add(packet.readUnsignedShort());
+			BorklerSnapshot snapshot = new BorklerSnapshot();
+			data.masks.add(snapshot.read(packet));
+			data.snapshots.add(snapshot);
+		}
+		return data;
+	}
+
+	/**
+	 * Hands the changes to the player's open {@link BorklerContainer}, if it's one
+	 * of the boilers they're about.
+	 */
+	@SuppressWarnings("resource")
+	public static void handlePacket(BorklerChunkUpdate data, Supplier<Context> contextSupplier) {
+		Context context = contextSupplier.get();
+		context.enqueueWork(() -> {
+			Container container = Minecraft.getInstance().player.openContainer;
+			if (!(container instanceof BorklerContainer))
+				return;
+			BorklerContainer menu = (BorklerContainer) container;
+			BlockPos pos = menu.getTileEntityPos();
+			if (pos == null || pos.getX() >> 4 != data.chunkX || pos.getZ() >> 4 != data.chunkZ)
+				return;
+			int i = data.positions.indexOf(pack(pos));
+			if (i >= 0)
+				menu.updateTanks(data.snapshots.get(i), data.masks.getInt(i));
+		});
+		context.setPacketHandled(true);
+	}
+}
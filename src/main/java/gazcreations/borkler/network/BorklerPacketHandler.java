@@ -18,8 +18,12 @@
  */
 package gazcreations.borkler.network;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.NetworkManager;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.world.chunk.Chunk;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
@@ -37,7 +41,7 @@ import net.minecraftforge.fml.network.simple.SimpleChannel;
 public class BorklerPacketHandler {
 
 	private static int id = 0;
-	private static final String PROTOCOL_VERSION = "1";
+	private static final String PROTOCOL_VERSION = "4";
 	public static SimpleChannel INSTANCE;
 
 	private BorklerPacketHandler() {
@@ -57,6 +61,9 @@ public class BorklerPacketHandler {
 		INSTANCE.registerMessage(id, BorklerData.class, BorklerData::encode, BorklerData::decode,
 				BorklerData::handlePacket);
 		id++;
+		INSTANCE.registerMessage(id, BorklerChunkUpdate.class, BorklerChunkUpdate::encode, BorklerChunkUpdate::decode,
+				BorklerChunkUpdate::handlePacket);
+		id++;
 		/*
 		 * INSTANCE.registerMessage(id, BorklerFluidList.class,
 		 * BorklerFluidList::encode, BorklerFluidList::decode,
@@ -68,6 +75,21 @@ public class BorklerPacketHandler {
 		INSTANCE.send(PacketDistributor.PLAYER.with(() -> (ServerPlayerEntity) player), message);
 	}
 
+	/**
+	 * Sends a message to a bunch of players at once. It's encoded once, no matter
+	 * how many of them there are.
+	 */
+	public static final void sendToPlayers(List<ServerPlayerEntity> players, Object message) {
+		if (players.size() == 1) {
+			sendToPlayer(players.get(0), message);
+			return;
+		}
+		List<NetworkManager> connections = new ArrayList<>(players.size());
+		for (int i = 0; i < players.size(); i++)
+			connections.add(players.get(i).connection.getNetworkManager());
+		INSTANCE.send(PacketDistributor.NMLIST.with(() -> connections), message);
+	}
+
 	public static final void sendToChunk(Chunk chunk, Object message) {
 		INSTANCE.send(PacketDistributor.TRACKING_CHUNK.with(() -> chunk), message);
 	}
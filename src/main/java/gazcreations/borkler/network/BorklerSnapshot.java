@@ -0,0 +1,153 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.network;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.fluid.Fluids;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.registry.Registry;
+
+/**
+ * What a client gets to know about a boiler, and how it goes over the wire.
+ * <p>
+ * Only the fields that changed get written, behind a bitmask saying which ones
+ * they are. Amounts are varints, fluids and items are their registry ids. A
+ * boiler that just made some steam costs two or three bytes, plus the address.
+ * 
+ * @author gazotti
+ *
+ */
+public class BorklerSnapshot {
+
+	public static final int WATER = 1;
+	public static final int FUEL_TYPE = 2;
+	public static final int FUEL = 4;
+	public static final int STEAM = 8;
+	public static final int SOLID_FUEL = 16;
+	public static final int ALL = WATER | FUEL_TYPE | FUEL | STEAM | SOLID_FUEL;
+
+	public int water;
+	public Fluid fuelType = Fluids.EMPTY;
+	public int fuel;
+	public int steam;
+	public Item solidFuelType = Items.AIR;
+	public int solidFuelCount;
+
+	/**
+	 * @return the bitmask of fields that aren't the same in the other snapshot.
+	 */
+	public int changedFrom(BorklerSnapshot other) {
+		int mask = 0;
+		if (water != other.water)
+			mask |= WATER;
+		if (fuelType != other.fuelType)
+			mask |= FUEL_TYPE;
+		if (fuel != other.fuel)
+			mask |= FUEL;
+		if (steam != other.steam)
+			mask |= STEAM;
+		if (solidFuelType != other.solidFuelType || solidFuelCount != other.solidFuelCount)
+			mask |= SOLID_FUEL;
+		return mask;
+	}
+
+	/**
+	 * Copies over the fields in the bitmask, and leaves the rest alone.
+	 */
+	public void copyFrom(BorklerSnapshot other, int mask) {
+		if ((mask & WATER) != 0)
+			water = other.water;
+		if ((mask & FUEL_TYPE) != 0)
+			fuelType = other.fuelType;
+		if ((mask & FUEL) != 0)
+			fuel = other.fuel;
+		if ((mask & STEAM) != 0)
+			steam = other.steam;
+		if ((mask & SOLID_FUEL) != 0) {
+			solidFuelType = other.solidFuelType;
+			solidFuelCount = other.solidFuelCount;
+		}
+	}
+
+	/**
+	 * Writes the bitmask, then the fields in it, in bitmask order.
+	 */
+	public void write(PacketBuffer packet, int mask) {
+		packet.writeByte(mask);
+		if ((mask & WATER) != 0)
+			packet.writeVarInt(water);
+		if ((mask & FUEL_TYPE) != 0)
+			packet.writeVarInt(Registry.FLUID.getId(fuelType));
+		if ((mask & FUEL) != 0)
+			packet.writeVarInt(fuel);
+		if ((mask & STEAM) != 0)
+			packet.writeVarInt(steam);
+		if ((mask & SOLID_FUEL) != 0) {
+			packet.writeVarInt(Registry.ITEM.getId(solidFuelType));
+			packet.writeVarInt(solidFuelCount);
+		}
+	}
+
+	/**
+	 * Reads what {@link BorklerSnapshot#write(PacketBuffer, int)} wrote. Fields
+	 * that weren't in it are left alone.
+	 * 
+	 * @return the bitmask of fields that were read.
+	 */
+	public int read(PacketBuffer packet) {
+		int mask = packet.readUnsignedByte();
+		if ((mask & WATER) != 0)
+			water = packet.readVarInt();
+		if ((mask & FUEL_TYPE) != 0)
+			fuelType = Registry.FLUID.getByValue(packet.readVarInt());
+		if ((mask & FUEL) != 0)
+			fuel = packet.readVarInt();
+		if ((mask & STEAM) != 0)
+			steam = packet.readVarInt();
+		if ((mask & SOLID_FUEL) != 0) {
+			solidFuelType = Registry.ITEM.getByValue(packet.readVarInt());
+			solidFuelCount = packet.readVarInt();
+		}
+		return mask;
+	}
+
+	/**
+	 * The whole snapshot, as bytes. For the update tag, which goes out with the
+	 * chunk.
+	 */
+	public byte[] toBytes() {
+		PacketBuffer packet = new PacketBuffer(Unpooled.buffer(16));
+		try {
+			write(packet, ALL);
+			byte[] bytes = new byte[packet.readableBytes()];
+			packet.readBytes(bytes);
+			return bytes;
+		} finally {
+			packet.release();
+		}
+	}
+
+	public void fromBytes(byte[] bytes) {
+		if (bytes.length > 0)
+			read(new PacketBuffer(Unpooled.wrappedBuffer(bytes)));
+	}
+}
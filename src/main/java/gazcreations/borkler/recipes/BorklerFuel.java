@@ -61,20 +61,16 @@ public class BorklerFuel implements IRecipe<BorklerTileEntity> {
 	}
 
 	/**
-	 * Searches the available fluid fuels to check the burn time for one mB of a
-	 * given fluid. <br>
-	 * Doubles as a check to see if such fluid is a valid fuel.
+	 * Checks the burn time for one mB of a given fluid. <br>
+	 * Doubles as a check to see if such fluid is a valid fuel. <br>
+	 * This is a lookup in the {@link FuelIndex}, so it's cheap, and works on
+	 * either side without a World.
 	 * 
 	 * @param fluid The fluid to check
-	 * @param world The world whose RecipeManager will be used to check the recipes
 	 * @return The burn time in ticks/mB; 0 if the fluid is not fuel
 	 */
-	public static int getBurnTime(Fluid fluid, World world) {
-		for (BorklerFuel rec : world.getRecipeManager().getRecipesForType(BorklerFuel.TYPE)) {
-			if (rec.fluid.isEquivalentTo(fluid))
-				return rec.burnTime;
-		}
-		return 0;
+	public static int getBurnTime(Fluid fluid) {
+		return FuelIndex.getBurnTime(fluid);
 	}
 
 	/**
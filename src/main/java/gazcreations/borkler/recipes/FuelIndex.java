@@ -0,0 +1,196 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.recipes;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMaps;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.client.resources.ReloadListener;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.item.crafting.RecipeManager;
+import net.minecraft.profiler.IProfiler;
+import net.minecraft.resources.IResourceManager;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.RecipesUpdatedEvent;
+import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.event.TagsUpdatedEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+/**
+ * A lookup table for liquid fuels, mapping each {@link Fluid} to its
+ * {@link BorklerFuel} burn time.
+ * <p>
+ * Boilers ask for burn times several times per tick, and walking the
+ * RecipeManager every time got expensive on modpacks with a lot of fuels. So
+ * instead, we keep an identity map around and throw it away whenever the
+ * recipes might have changed (datapack reload, recipe sync on the client,
+ * CraftTweaker scripts). It is rebuilt on the next lookup, from whichever
+ * {@link RecipeManager} was last handed to us.
+ * </p>
+ * Lookups do not need a World and may come from any thread; the map is never
+ * modified after being published.
+ * 
+ * @author gazotti
+ *
+ */
+@Mod.EventBusSubscriber(modid = "borkler")
+public final class FuelIndex {
+
+	/**
+	 * The current index. A rebuild publishes the map and its version together, so
+	 * a lookup on another thread never pairs one with the other's predecessor.
+	 */
+	private static volatile Table table = new Table(Reference2IntMaps.emptyMap(), 0);
+
+	/**
+	 * The RecipeManager the next rebuild will read from.
+	 */
+	private static volatile RecipeManager source;
+
+	/**
+	 * True if {@link FuelIndex#table} no longer reflects {@link FuelIndex#source}.
+	 */
+	private static volatile boolean stale;
+
+	private FuelIndex() {
+	}
+
+	/**
+	 * @param fluid The fluid to check
+	 * @return The burn time in ticks/mB; 0 if the fluid is not fuel
+	 */
+	public static int getBurnTime(Fluid fluid) {
+		return (stale ? rebuild() : table).burnTimes.getInt(fluid);
+	}
+
+	/**
+	 * @return true if the fluid can be burned in a boiler.
+	 */
+	public static boolean isFuel(Fluid fluid) {
+		return getBurnTime(fluid) > 0;
+	}
+
+	/**
+	 * Brings the index up to date, if needed, and returns its version. Tables
+	 * derived from the fuel index (or from fluid tags, which are reloaded
+	 * alongside it) should rebuild themselves whenever this changes.
+	 */
+	public static int getVersion() {
+		return (stale ? rebuild() : table).version;
+	}
+
+	/**
+	 * Marks the index as stale, so that it will be rebuilt from its current
+	 * RecipeManager on the next lookup.
+	 */
+	public static void invalidate() {
+		stale = true;
+	}
+
+	/**
+	 * Marks the index as stale, and points it to a new RecipeManager.
+	 */
+	public static void invalidate(RecipeManager manager) {
+		source = manager;
+		stale = true;
+	}
+
+	private static synchronized Table rebuild() {
+		if (!stale)
+			return table; // somebody beat us to it
+		stale = false;
+		RecipeManager manager = source;
+		if (manager == null)
+			return table = new Table(Reference2IntMaps.emptyMap(), table.version + 1);
+		Reference2IntOpenHashMap<Fluid> map = new Reference2IntOpenHashMap<>();
+		map.defaultReturnValue(0);
+		for (BorklerFuel rec : manager.getRecipesForType(BorklerFuel.TYPE)) {
+			// first recipe wins, same as the old linear lookup did
+			if (rec.fluid != null && rec.burnTime > 0 && !map.containsKey(rec.fluid))
+				map.put(rec.fluid, rec.burnTime);
+		}
+		map.trim();
+		Table built = new Table(map, table.version + 1);
+		table = built;
+		gazcreations.borkler.Borkler.LOGGER.debug("Rebuilt the liquid fuel index: " + map.size() + " fuels.");
+		return built;
+	}
+
+	/**
+	 * A map and the version it goes by. Never modified once published.
+	 */
+	private static final class Table {
+		/**
+		 * Fluid -> burn time, in ticks/mB. Missing fluids are not fuel, and map to 0.
+		 */
+		final Reference2IntMap<Fluid> burnTimes;
+		/**
+		 * Bumped every time the index is rebuilt, so that anything derived from it
+		 * can tell when it has to catch up.
+		 */
+		final int version;
+
+		Table(Reference2IntMap<Fluid> burnTimes, int version) {
+			this.burnTimes = burnTimes;
+			this.version = version;
+		}
+	}
+
+	/**
+	 * Hooks into datapack (re)loading. The index is invalidated once the recipes
+	 * have been applied, rather than when the reload starts, since the new
+	 * RecipeManager is still empty at that point.
+	 */
+	@SubscribeEvent
+	public static void onAddReloadListener(final AddReloadListenerEvent event) {
+		final RecipeManager manager = event.getDataPackRegistries().getRecipeManager();
+		event.addListener(new ReloadListener<Void>() {
+			@Override
+			protected Void prepare(IResourceManager resourceManager, IProfiler profiler) {
+				return null;
+			}
+
+			@Override
+			protected void apply(Void nothing, IResourceManager resourceManager, IProfiler profiler) {
+				invalidate(manager);
+			}
+		});
+	}
+
+	/**
+	 * Tags are updated at the very end of a reload, on both sides, so this is our
+	 * last word on the matter.
+	 */
+	@SubscribeEvent
+	public static void onTagsUpdated(final TagsUpdatedEvent event) {
+		invalidate();
+	}
+
+	/**
+	 * Client-side counterpart: recipes are synced from the server.
+	 */
+	@Mod.EventBusSubscriber(modid = "borkler", value = Dist.CLIENT)
+	public static final class Client {
+		@SubscribeEvent
+		public static void onRecipesUpdated(final RecipesUpdatedEvent event) {
+			invalidate(event.getRecipeManager());
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.recipes;
+
+import gazcreations.borkler.BorklerConfig;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.common.ForgeHooks;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
+import net.minecraftforge.registries.ForgeRegistries;
+
+/**
+ * A lookup table for solid fuels, mapping each {@link Item} to its burn time in
+ * a boiler, already corrected by {@link BorklerConfig#NERFACTOR}.
+ * <p>
+ * Hoppers and pipes ask the boiler whether it wants their items a <i>lot</i>,
+ * and {@link ForgeHooks#getBurnTime(ItemStack)} fires an event every time it's
+ * called. So we ask once per item, and remember. The table is rebuilt along
+ * with the {@link FuelIndex} (which covers tag reloads, and vanilla fuels are
+ * partly defined by tags), and whenever the config is reloaded.
+ * </p>
+ * Some fuels care about NBT, though. Stacks carrying a tag, and items that
+ * blew up when asked about an NBT-less stack, skip the table and are looked up
+ * the old-fashioned way.
+ * 
+ * @author gazotti
+ *
+ */
+public final class SolidFuelIndex {
+
+	/**
+	 * The current table. Lookups may come from off the server thread, so a rebuild
+	 * fills in a new one and swaps it in whole; nobody ever sees half of one.
+	 */
+	private static volatile Table table = new Table(new Reference2IntOpenHashMap<>(),
+			new ReferenceOpenHashSet<>(), 1.0, -1);
+
+	private static volatile boolean stale = true;
+
+	private SolidFuelIndex() {
+	}
+
+	/**
+	 * @return The burn time, in ticks, for a given solid fuel, corrected by
+	 *         {@link BorklerConfig#NERFACTOR}; -1 if it does not burn at all.
+	 */
+	public static int getBurnTime(ItemStack stack) {
+		if (stack.isEmpty())
+			return -1;
+		Table t = table;
+		if (stale || FuelIndex.getVersion() != t.builtFrom)
+			t = rebuild();
+		Item item = stack.getItem();
+		if (stack.hasTag() || t.dynamic.contains(item))
+			return nerf(ForgeHooks.getBurnTime(stack), t.nerfactor);
+		return t.burnTimes.getInt(item);
+	}
+
+	/**
+	 * @return true if the stack burns in a furnace, regardless of whether the
+	 *         nerfed time rounds down to nothing.
+	 */
+	public static boolean isFuel(ItemStack stack) {
+		return getBurnTime(stack) >= 0;
+	}
+
+	/**
+	 * Marks the table as stale; it will be rebuilt on the next lookup.
+	 */
+	public static void invalidate() {
+		stale = true;
+	}
+
+	private static int nerf(int burnTime, double factor) {
+		return burnTime > 0 ? Math.toIntExact(Math.round(Math.floor(burnTime * factor))) : -1;
+	}
+
+	private static synchronized Table rebuild() {
+		int version = FuelIndex.getVersion();
+		if (!stale && version == table.builtFrom)
+			return table;
+		stale = false;
+		double factor = BorklerConfig.CONFIG.NERFACTOR.get();
+		Reference2IntOpenHashMap<Item> times = new Reference2IntOpenHashMap<>();
+		ReferenceOpenHashSet<Item> dyn = new ReferenceOpenHashSet<>();
+		for (Item item : ForgeRegistries.ITEMS.getValues()) {
+			try {
+				int nerfd = nerf(ForgeHooks.getBurnTime(new ItemStack(item)), factor);
+				if (nerfd >= 0)
+					times.put(item, nerfd);
+			} catch (Exception e) {
+				// some mod's item really wanted its NBT. Fine, we'll ask every time.
+				dyn.add(item);
+			}
+		}
+		Table built = new Table(times, dyn, factor, version);
+		table = built;
+		gazcreations.borkler.Borkler.LOGGER.debug("Rebuilt the solid fuel index: " + times.size() + " fuels, "
+				+ dyn.size() + " looked up on demand.");
+		return built;
+	}
+
+	/**
+	 * Everything a lookup needs, built together. Never modified once published.
+	 */
+	private static final class Table {
+		/**
+		 * Item -> nerfed burn time, in ticks. Items that don't burn map to -1.
+		 */
+		final Reference2IntOpenHashMap<Item> burnTimes;
+		/**
+		 * Items whose burn time we couldn't figure out without an actual stack.
+		 */
+		final ReferenceOpenHashSet<Item> dynamic;
+		/**
+		 * The NERFACTOR in effect when the table was built.
+		 */
+		final double nerfactor;
+		/**
+		 * The {@link FuelIndex#getVersion()} this table was built from.
+		 */
+		final int builtFrom;
+
+		Table(Reference2IntOpenHashMap<Item> burnTimes, ReferenceOpenHashSet<Item> dynamic, double nerfactor,
+				int builtFrom) {
+			burnTimes.defaultReturnValue(-1);
+			burnTimes.trim();
+			this.burnTimes = burnTimes;
+			this.dynamic = dynamic;
+			this.nerfactor = nerfactor;
+			this.builtFrom = builtFrom;
+		}
+	}
+
+	/**
+	 * Config changes may touch NERFACTOR.
+	 */
+	@Mod.EventBusSubscriber(modid = "borkler", bus = Mod.EventBusSubscriber.Bus.MOD)
+	public static final class ConfigListener {
+		@SubscribeEvent
+		public static void onConfigChanged(final ModConfig.ModConfigEvent event) {
+			invalidate();
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.blocks;
+
+import static gazcreations.borkler.blocks.BoilerTanks.AWAKE;
+import static gazcreations.borkler.blocks.BoilerTanks.FAR;
+import static gazcreations.borkler.blocks.BoilerTanks.LAZY;
+import static gazcreations.borkler.blocks.BoilerTanks.TICKING;
+import static gazcreations.borkler.blocks.BoilerTanks.WATER_CAPACITY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the array-only part of a {@link BoilerManager} tick: picking whose turn
+ * it is, and the boil loop.
+ * <p>
+ * Slots are set up by hand, since {@link BoilerTanks#allocate} needs the fluid
+ * registry. For the same reason the boilers burn solid fuel: liquid fuel goes
+ * through the fuel index.
+ * </p>
+ * 
+ * @author gazotti
+ *
+ */
+class BoilerTanksTest {
+
+	private static final int BOILERS = 128;
+	private static final int WATER_USE = 25;
+	private static final double CONVERSION_RATE = 1.0;
+
+	private final BoilerTanks tanks = new BoilerTanks(BOILERS);
+	private long steamMade;
+
+	BoilerTanksTest() {
+		tanks.size = BOILERS;
+		for (int i = 0; i < BOILERS; i++) {
+			tanks.water[i] = WATER_CAPACITY;
+			tanks.solidBurn[i] = 200;
+			tanks.solidCount[i] = 64;
+			tanks.stagger[i] = i;
+			tanks.flags[i] = AWAKE;
+		}
+	}
+
+	@Test
+	void turnsAreStaggered() {
+		tanks.lod[1] = FAR;
+		tanks.lod[2] = LAZY;
+		int[] turns = new int[BOILERS];
+		for (long now = 0; now < 100; now++) {
+			tanks.takeTurns(BOILERS, now, 5, 20);
+			for (int i = 0; i < BOILERS; i++)
+				if ((tanks.flags[i] & TICKING) != 0)
+					turns[i]++;
+		}
+		assertEquals(20, turns[0]);
+		assertEquals(5, turns[1]);
+		assertEquals(0, turns[2]);
+		assertEquals(20, turns[3]);
+	}
+
+	@Test
+	void boilingDoesNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		long now = 0;
+		// warm up, so the JIT has had a go
+		while (now < 20000)
+			tick(++now);
+		final int ticks = 10000;
+		final long thread = Thread.currentThread().getId();
+		steamMade = 0;
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int k = 0; k < ticks; k++)
+			tick(++now);
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		assertTrue(steamMade > 0, "nothing was boiled");
+		// asking for the count allocates a little by itself. Anything allocated
+		// per tick would be at least a hundred kB by now
+		assertTrue(allocated < 4096, allocated + " bytes allocated over " + ticks + " ticks");
+	}
+
+	private void tick(long now) {
+		tanks.takeTurns(BOILERS, now, 2, 10);
+		tanks.boil(0, BOILERS, now, WATER_USE, CONVERSION_RATE);
+		// stand-in for the neighbors: water comes in, steam goes out
+		if (now % 50 == 0) {
+			for (int i = 0; i < BOILERS; i++) {
+				tanks.water[i] = WATER_CAPACITY;
+				steamMade += tanks.steam[i];
+				tanks.steam[i] = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.blocks;
+
+import static gazcreations.borkler.blocks.IntakePlanner.FUEL;
+import static gazcreations.borkler.blocks.IntakePlanner.WATER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the {@link IntakePlanner} asks the right neighbors for the right
+ * things.
+ * 
+ * @author gazotti
+ *
+ */
+class IntakePlannerTest {
+
+	private final IntakePlanner intake = new IntakePlanner();
+
+	/**
+	 * A boiler burning solid fuel, next to a pipe that only ever has water. Its
+	 * fuel tank is always empty, so the pipe gets asked for fuel all the time, and
+	 * never has any. That mustn't keep it from being asked for water, however fast
+	 * the boiler goes through it (a turn can be several ticks' worth).
+	 */
+	@Test
+	void waterOnlyNeighborKeepsSolidFuelBoilerFed() {
+		for (int waterUse = 25; waterUse < BoilerTanks.WATER_CAPACITY / 2; waterUse += 25) {
+			IntakePlanner intake = new IntakePlanner();
+			int water = BoilerTanks.WATER_CAPACITY;
+			for (int turn = 0; turn < 2000; turn++) {
+				water -= waterUse;
+				assertTrue(water > 0, "ran dry on turn " + turn + ", using " + waterUse + " mB a turn");
+				byte ask = intake.toAsk(0, SideMode.AUTO, IntakePlanner.isLow(water, BoilerTanks.WATER_CAPACITY),
+						IntakePlanner.isLow(0, BoilerTanks.FUEL_CAPACITY));
+				byte gave = 0;
+				if ((ask & WATER) != 0) {
+					water = BoilerTanks.WATER_CAPACITY;
+					gave = WATER;
+				}
+				intake.answered(0, ask, gave);
+			}
+			// and it's been left alone for fuel, mostly
+			assertFalse(intake.shouldPoll(0, FUEL));
+		}
+	}
+
+	@Test
+	void emptyNeighborIsBackedOffExponentially() {
+		int asked = 0;
+		for (int turn = 0; turn < 1 + 2 + 4 + 8 + 4; turn++) {
+			byte ask = intake.toAsk(2, SideMode.AUTO, true, true);
+			if (ask != 0) {
+				assertEquals(WATER | FUEL, ask);
+				asked++;
+			}
+			intake.answered(2, ask, (byte) 0);
+		}
+		// turns 0, 2, 5, 10: waiting 1, 2 and 4 turns in between
+		assertEquals(4, asked);
+	}
+
+	@Test
+	void providingResetsOnlyThatFluid() {
+		intake.answered(1, (byte) (WATER | FUEL), (byte) 0);
+		intake.answered(1, WATER, WATER);
+		assertEquals(WATER, intake.toAsk(1, SideMode.AUTO, true, true));
+	}
+
+	@Test
+	void consumerIsNotAsked() {
+		intake.consumed(3);
+		for (int turn = 0; turn < 100; turn++)
+			assertEquals(0, intake.toAsk(3, SideMode.AUTO, true, true));
+		intake.reset(3);
+		assertEquals(WATER | FUEL, intake.toAsk(3, SideMode.AUTO, true, true));
+	}
+
+	@Test
+	void sideModeLimitsWhatIsAsked() {
+		assertEquals(WATER, intake.toAsk(4, SideMode.WATER_IN, true, true));
+		assertEquals(FUEL, intake.toAsk(4, SideMode.FUEL_IN, true, true));
+		assertEquals(0, intake.toAsk(4, SideMode.STEAM_PUSH, true, true));
+	}
+}
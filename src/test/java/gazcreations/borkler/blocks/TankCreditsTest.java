@@ -0,0 +1,225 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.blocks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hammers {@link TankCredits} from a bunch of threads at once, while this one
+ * plays the server thread, and checks that no fluid is made or lost on the way.
+ * 
+ * @author gazotti
+ *
+ */
+class TankCreditsTest {
+
+	private static final int WATER_CAPACITY = 4000;
+	private static final int FUEL_CAPACITY = 4000;
+	private static final String OIL = "oil";
+	private static final String ETHANOL = "ethanol";
+
+	/**
+	 * Stands in for a boiler's tanks, owned by the "server thread".
+	 */
+	private int water;
+	private String fuelType;
+	private int fuel;
+	private int steam;
+
+	private final TankCredits<String> credits = new TankCredits<>(WATER_CAPACITY, FUEL_CAPACITY);
+
+	/**
+	 * What BorklerTileEntity does: applies what was used, then hands out new
+	 * credit.
+	 */
+	private void publish() {
+		if (credits.reclaim()) {
+			water += credits.getWaterUsed();
+			if (credits.getFuelUsed() > 0) {
+				if (fuel <= 0)
+					fuelType = credits.getFuelUsedType();
+				fuel += credits.getFuelUsed();
+			}
+			steam -= credits.getSteamUsed();
+		}
+		credits.publish(water, fuelType, fuel, steam);
+	}
+
+	@Test
+	void fluidIsConservedUnderContention() throws InterruptedException {
+		water = 1000;
+		fuelType = OIL;
+		fuel = 1000;
+		steam = 3000;
+		publish();
+		final int startWater = water, startFuel = fuel, startSteam = steam;
+		final AtomicLong filledWater = new AtomicLong();
+		final AtomicLong filledFuel = new AtomicLong();
+		final AtomicLong drainedSteam = new AtomicLong();
+		final AtomicBoolean stop = new AtomicBoolean();
+		final AtomicReference<String> broken = new AtomicReference<>();
+		final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		final CountDownLatch ready = new CountDownLatch(threads);
+		List<Thread> workers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final int kind = t % 4;
+			Thread worker = new Thread(() -> {
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				ready.countDown();
+				while (!stop.get()) {
+					int amount = random.nextInt(1, 300);
+					switch (kind) {
+					case 0:
+						filledWater.addAndGet(credits.takeWater(amount, true));
+						break;
+					case 1:
+						// the wrong fuel never gets in
+						if (credits.takeFuel(ETHANOL, amount, true) != 0)
+							broken.set("ethanol got into an oil boiler");
+						filledFuel.addAndGet(credits.takeFuel(OIL, amount, true));
+						break;
+					case 2:
+						drainedSteam.addAndGet(credits.takeSteam(amount, true));
+						break;
+					default:
+						// what's shown has to make sense at any time
+						int shownWater = credits.shownWater();
+						int shownSteam = credits.shownSteam();
+						String shown = credits.shownFuel((type, fuelAmount) -> fuelAmount > 0 && type != OIL
+								? "fuel shown as " + type
+								: null);
+						if (shownWater < 0 || shownWater > WATER_CAPACITY)
+							broken.set("water shown as " + shownWater);
+						if (shownSteam < 0)
+							broken.set("steam shown as " + shownSteam);
+						if (shown != null)
+							broken.set(shown);
+					}
+				}
+			});
+			workers.add(worker);
+			worker.start();
+		}
+		ready.await();
+		long boiledWater = 0, burnedFuel = 0, madeSteam = 0;
+		for (int tick = 0; tick < 5000; tick++) {
+			publish();
+			assertTrue(water >= 0 && water <= WATER_CAPACITY, "water out of bounds: " + water);
+			assertTrue(fuel >= 0 && fuel <= FUEL_CAPACITY, "fuel out of bounds: " + fuel);
+			assertTrue(steam >= 0, "steam out of bounds: " + steam);
+			// boil a bit, while the credit is out. Only ever on the safe side
+			int boil = Math.min(water, 40);
+			water -= boil;
+			boiledWater += boil;
+			steam += boil * 2;
+			madeSteam += boil * 2;
+			int burn = Math.min(fuel, 5);
+			fuel -= burn;
+			burnedFuel += burn;
+			if (fuel == 0 && tick % 100 == 0) {
+				// the server thread starting a fresh tank, as it's allowed to
+				fuelType = OIL;
+				fuel = 500;
+				burnedFuel -= 500;
+			}
+			if (tick % 7 == 0)
+				Thread.yield();
+		}
+		stop.set(true);
+		for (Thread worker : workers)
+			worker.join();
+		publish();
+		assertEquals(null, broken.get());
+		assertEquals(startWater + filledWater.get() - boiledWater, water);
+		assertEquals(startFuel + filledFuel.get() - burnedFuel, fuel);
+		assertEquals(startSteam + madeSteam - drainedSteam.get(), steam);
+	}
+
+	@Test
+	void simulationAgreesWithExecution() {
+		water = 3900;
+		fuelType = OIL;
+		fuel = 3950;
+		steam = 120;
+		publish();
+		assertEquals(100, credits.takeWater(500, false));
+		assertEquals(100, credits.takeWater(500, true));
+		assertEquals(0, credits.takeWater(1, false));
+		assertEquals(50, credits.takeFuel(OIL, 500, false));
+		assertEquals(50, credits.takeFuel(OIL, 500, true));
+		assertEquals(120, credits.takeSteam(500, false));
+		assertEquals(120, credits.takeSteam(500, true));
+		assertEquals(0, credits.takeSteam(1, true));
+		assertEquals(WATER_CAPACITY, credits.shownWater());
+		assertEquals(0, credits.shownSteam());
+		publish();
+		assertEquals(WATER_CAPACITY, water);
+		assertEquals(FUEL_CAPACITY, fuel);
+		assertEquals(0, steam);
+	}
+
+	@Test
+	void nothingIsHandedOutWhileReclaimed() {
+		water = 0;
+		fuelType = OIL;
+		fuel = 10;
+		steam = 500;
+		publish();
+		credits.takeSteam(100, true);
+		assertTrue(credits.reclaim());
+		assertEquals(100, credits.getSteamUsed());
+		assertEquals(0, credits.takeWater(100, true));
+		assertEquals(0, credits.takeFuel(OIL, 100, true));
+		assertEquals(0, credits.takeSteam(100, true));
+		// what's shown stays put in the meantime
+		assertEquals(400, credits.shownSteam());
+	}
+
+	@Test
+	void fuelCreditDoesNotOutliveItsType() {
+		water = 0;
+		fuelType = OIL;
+		fuel = 10;
+		steam = 0;
+		publish();
+		assertEquals(0, credits.takeFuel(ETHANOL, 100, true));
+		// burned through, and restarted on another fuel by the server thread
+		fuel = 0;
+		publish();
+		assertEquals(0, credits.takeFuel(OIL, 100, true));
+		fuelType = ETHANOL;
+		fuel = 10;
+		publish();
+		assertEquals(0, credits.takeFuel(OIL, 100, true));
+		assertEquals(100, credits.takeFuel(ETHANOL, 100, true));
+		assertEquals(ETHANOL, credits.shownFuel((type, amount) -> type));
+		assertEquals(110, (int) credits.shownFuel((type, amount) -> amount));
+	}
+}
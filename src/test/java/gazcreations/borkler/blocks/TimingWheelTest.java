@@ -0,0 +1,123 @@
+/**
+ *  Copyright 2021, B. Gazotti
+ *
+ *  This file is part of Borkler.
+ *
+ *  Borkler is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Borkler is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Borkler.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package gazcreations.borkler.blocks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the {@link TimingWheel} fires things when they're due, and only
+ * then, without making garbage once it's warmed up.
+ * 
+ * @author gazotti
+ *
+ */
+class TimingWheelTest {
+
+	private static final int ENTRIES = 128;
+
+	private final long[] due = new long[ENTRIES];
+	private final long[] firedAt = new long[ENTRIES];
+	private final TimingWheel<Integer> wheel = new TimingWheel<>(entry -> due[entry]);
+	private final Integer[] entries = new Integer[ENTRIES];
+	private long now;
+	private final Consumer<Integer> fire = entry -> {
+		firedAt[entry] = now;
+		due[entry] = -1;
+	};
+
+	TimingWheelTest() {
+		for (int i = 0; i < ENTRIES; i++) {
+			entries[i] = Integer.valueOf(i);
+			due[i] = -1;
+			firedAt[i] = -1;
+		}
+	}
+
+	private void schedule(int entry, long at) {
+		due[entry] = at;
+		wheel.schedule(entries[entry], at);
+	}
+
+	private void advanceTo(long time) {
+		while (now < time)
+			wheel.advance(++now, fire);
+	}
+
+	@Test
+	void firesWhenDue() {
+		wheel.advance(now, fire);
+		schedule(0, 10); // near wheel
+		schedule(1, 1000); // far wheel
+		schedule(2, 100000); // overflow
+		advanceTo(200000);
+		assertEquals(10, firedAt[0]);
+		assertEquals(1000, firedAt[1]);
+		assertEquals(100000, firedAt[2]);
+	}
+
+	@Test
+	void staleEntriesAreDropped() {
+		wheel.advance(now, fire);
+		schedule(0, 10);
+		schedule(0, 600); // rescheduled: the first entry no longer matches
+		schedule(1, 20);
+		due[1] = -1; // and this one's off the wheel altogether
+		advanceTo(1000);
+		assertEquals(600, firedAt[0]);
+		assertEquals(-1, firedAt[1]);
+	}
+
+	@Test
+	void steadySchedulingDoesNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		wheel.advance(now, fire);
+		// warm up. Every bucket only grows to size the first time it's used, and
+		// the far ones are only used once every 65536 ticks
+		while (now < 70000)
+			tick();
+		final int ticks = 20000;
+		final long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int k = 0; k < ticks; k++)
+			tick();
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+		assertTrue(allocated < 4096, allocated + " bytes allocated over " + ticks + " ticks");
+	}
+
+	/**
+	 * Entries go to sleep every 512 ticks, most of them long enough to go through
+	 * the far wheel.
+	 */
+	private void tick() {
+		for (int i = 0; i < ENTRIES; i++)
+			if ((now + i) % 512 == 0 && due[i] < 0)
+				schedule(i, now + 300 + i % 200);
+		wheel.advance(++now, fire);
+	}
+}